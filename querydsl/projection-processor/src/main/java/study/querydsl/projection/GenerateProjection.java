@@ -0,0 +1,28 @@
+package study.querydsl.projection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DTO 이름 + Projection 클래스(FactoryExpression)를 생성한다.
+ *
+ * Projections.bean/fields 처럼 리플렉션으로 값을 넣거나 @QueryProjection 처럼 Constructor.newInstance 를 호출하지 않고,
+ * 생성된 코드가 생성자나 setter 를 직접 호출한다.
+ *
+ * - 필드와 이름, 타입, 순서가 같은 생성자가 있으면 그 생성자를 쓰고, 없으면 기본 생성자 + setter 를 쓴다.
+ * - 생성되는 생성자는 필드 선언 순서대로 Expression 을 받는다.
+ * - from 을 지정하면 엔티티 Q 타입을 받는 of(...) 도 만든다. 필드 이름과 엔티티 속성 이름이 다르면 @MappedFrom 으로 지정한다.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateProjection {
+
+    /**
+     * of(...) 를 만들 엔티티. void 면 만들지 않는다.
+     */
+    Class<?> from() default void.class;
+}
@@ -0,0 +1,20 @@
+package study.querydsl.projection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GenerateProjection.from 엔티티에서 이 필드 값을 가져올 속성 경로.
+ * 예) UserDto.name 에 @MappedFrom("username") 이면 of(member) 는 member.username 을 name 에 넣는다.
+ * "team.name" 처럼 점으로 연관관계를 따라갈 수 있다. (implicit join 이므로 inner join 이 된다)
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+public @interface MappedFrom {
+
+    String value();
+}
@@ -0,0 +1,364 @@
+package study.querydsl.projection.processor;
+
+import study.querydsl.projection.GenerateProjection;
+import study.querydsl.projection.MappedFrom;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @GenerateProjection 이 붙은 DTO 마다 {DTO}Projection 소스를 생성한다.
+ *
+ * 생성된 클래스는 FactoryExpressionBase 를 상속하고 newInstance 에서 생성자/setter 를 직접 호출한다.
+ * row 마다 리플렉션 호출, 파라미터 타입 변환용 배열 복사가 없다.
+ * lombok 이 만드는 생성자/setter 는 이 시점에 보이지 않으므로 lombok 어노테이션(@Data, @Setter, @NoArgsConstructor)도 인정한다.
+ */
+@SupportedAnnotationTypes("study.querydsl.projection.GenerateProjection")
+public class ProjectionProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "Projection";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateProjection.class)) {
+            if (element.getKind() != ElementKind.CLASS || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                error(element, "@GenerateProjection 은 최상위 클래스에만 사용할 수 있습니다.");
+                continue;
+            }
+            TypeElement dto = (TypeElement) element;
+            try {
+                generate(dto);
+            } catch (IOException e) {
+                error(dto, dto.getSimpleName() + SUFFIX + " 생성에 실패했습니다: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement dto) throws IOException {
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(dto.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            error(dto, "매핑할 필드가 없습니다.");
+            return;
+        }
+
+        boolean useConstructor = hasFieldConstructor(dto, fields);
+        if (!useConstructor && !canUseSetters(dto, fields)) {
+            return;
+        }
+        TypeElement entity = fromEntity(dto);
+        List<String> paths = entity == null ? null : entityPaths(entity, fields);
+        if (entity != null && paths == null) {
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(dto).getQualifiedName().toString();
+        String dtoName = dto.getSimpleName().toString();
+        String className = dtoName + SUFFIX;
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + "." + className, dto).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import com.querydsl.core.types.Expression;");
+            out.println("import com.querydsl.core.types.FactoryExpressionBase;");
+            out.println("import com.querydsl.core.types.Visitor;");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("/**");
+            out.println(" * " + dtoName + " projection. " + (useConstructor ? "생성자" : "기본 생성자 + setter") + "를 직접 호출한다.");
+            out.println(" * 인자는 " + names(fields) + " 순서.");
+            out.println(" */");
+            out.println("@Generated(\"" + ProjectionProcessor.class.getName() + "\")");
+            out.println("public final class " + className + " extends FactoryExpressionBase<" + dtoName + "> {");
+            out.println();
+            out.println("    private static final long serialVersionUID = 1L;");
+            out.println();
+            out.println("    private final List<Expression<?>> args;");
+            out.println();
+
+            //생성자
+            List<String> parameters = new ArrayList<>();
+            for (VariableElement field : fields) {
+                parameters.add("Expression<? extends " + boxedName(field.asType()) + "> " + field.getSimpleName());
+            }
+            out.println("    public " + className + "(" + String.join(", ", parameters) + ") {");
+            out.println("        super(" + dtoName + ".class);");
+            out.println("        this.args = List.of(" + names(fields) + ");");
+            out.println("    }");
+            out.println();
+
+            if (entity != null) {
+                String qType = qTypeName(entity);
+                String variable = uncapitalize(entity.getSimpleName().toString());
+                List<String> arguments = new ArrayList<>();
+                for (String path : paths) {
+                    arguments.add(variable + "." + path);
+                }
+                out.println("    public static " + className + " of(" + qType + " " + variable + ") {");
+                out.println("        return new " + className + "(" + String.join(", ", arguments) + ");");
+                out.println("    }");
+                out.println();
+            }
+
+            out.println("    @Override");
+            out.println("    public List<Expression<?>> getArgs() {");
+            out.println("        return args;");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public " + dtoName + " newInstance(Object... row) {");
+            if (useConstructor) {
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    values.add(value(fields.get(i).asType(), i));
+                }
+                out.println("        return new " + dtoName + "(");
+                out.println("                " + String.join(",\n                ", values) + ");");
+            } else {
+                out.println("        " + dtoName + " dto = new " + dtoName + "();");
+                for (int i = 0; i < fields.size(); i++) {
+                    VariableElement field = fields.get(i);
+                    out.println("        dto." + setterName(field) + "(" + value(field.asType(), i) + ");");
+                }
+                out.println("        return dto;");
+            }
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public <R, C> R accept(Visitor<R, C> v, C context) {");
+            out.println("        return v.visit(this, context);");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * 필드와 이름, 타입, 순서가 모두 같은 생성자
+     */
+    private boolean hasFieldConstructor(TypeElement dto, List<VariableElement> fields) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(dto.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() != fields.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < fields.size() && matches; i++) {
+                matches = parameters.get(i).getSimpleName().equals(fields.get(i).getSimpleName())
+                        && processingEnv.getTypeUtils().isSameType(parameters.get(i).asType(), fields.get(i).asType());
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canUseSetters(TypeElement dto, List<VariableElement> fields) {
+        boolean noArgs = hasAnnotation(dto, "lombok.NoArgsConstructor");
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(dto.getEnclosedElements())) {
+            //선언된 생성자가 없으면 javac 가 만든 기본 생성자가 보인다.
+            noArgs |= constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE);
+        }
+        if (!noArgs) {
+            error(dto, "필드와 순서가 같은 생성자나 기본 생성자가 필요합니다.");
+            return false;
+        }
+
+        boolean lombokSetters = hasAnnotation(dto, "lombok.Data") || hasAnnotation(dto, "lombok.Setter");
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            if (lombokSetters || hasAnnotation(field, "lombok.Setter") || hasSetter(dto, field)) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                error(field, "final 필드는 setter 로 채울 수 없습니다. 필드와 순서가 같은 생성자를 추가하세요.");
+            } else {
+                error(field, setterName(field) + "(" + field.asType() + ") 가 없습니다.");
+            }
+            valid = false;
+        }
+        return valid;
+    }
+
+    private boolean hasSetter(TypeElement dto, VariableElement field) {
+        String name = setterName(field);
+        for (ExecutableElement method : ElementFilter.methodsIn(dto.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement fromEntity(TypeElement dto) {
+        TypeMirror from;
+        try {
+            dto.getAnnotation(GenerateProjection.class).from();
+            return null;
+        } catch (MirroredTypeException e) {
+            from = e.getTypeMirror();
+        }
+        if (from.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) from).asElement();
+    }
+
+    /**
+     * 필드별 엔티티 속성 경로. 없는 속성이 있으면 null
+     */
+    private List<String> entityPaths(TypeElement entity, List<VariableElement> fields) {
+        List<String> paths = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            MappedFrom mappedFrom = field.getAnnotation(MappedFrom.class);
+            String path = mappedFrom != null ? mappedFrom.value() : field.getSimpleName().toString();
+            TypeElement owner = entity;
+            for (String segment : path.split("\\.")) {
+                VariableElement property = owner == null ? null : findField(owner, segment);
+                if (property == null) {
+                    error(field, entity.getSimpleName() + " 에 " + path + " 속성이 없습니다.");
+                    valid = false;
+                    break;
+                }
+                TypeMirror type = property.asType();
+                owner = type.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) type).asElement() : null;
+            }
+            paths.add(path);
+        }
+        return valid ? paths : null;
+    }
+
+    private VariableElement findField(TypeElement type, String name) {
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getSimpleName().contentEquals(name) && !field.getModifiers().contains(Modifier.STATIC)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    /**
+     * row[index] 를 필드 타입으로 변환하는 식. primitive 는 null 이면 기본값으로 둔다. (ConstructorExpression 과 같은 동작)
+     */
+    private String value(TypeMirror type, int index) {
+        String row = "row[" + index + "]";
+        if (type.getKind().isPrimitive()) {
+            return row + " == null ? " + defaultValue(type.getKind()) + " : (" + boxedName(type) + ") " + row;
+        }
+        return "(" + boxedName(type) + ") " + row;
+    }
+
+    private String boxedName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type)
+                    .getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String defaultValue(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0F";
+            case DOUBLE:
+                return "0D";
+            case BYTE:
+                return "(byte) 0";
+            case SHORT:
+                return "(short) 0";
+            default:
+                return "0";
+        }
+    }
+
+    private static String qTypeName(TypeElement entity) {
+        String qualified = entity.getQualifiedName().toString();
+        int lastDot = qualified.lastIndexOf('.');
+        return qualified.substring(0, lastDot + 1) + "Q" + qualified.substring(lastDot + 1);
+    }
+
+    private static String setterName(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        return "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String uncapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String names(List<VariableElement> fields) {
+        List<String> names = new ArrayList<>();
+        for (VariableElement field : fields) {
+            names.add(field.getSimpleName().toString());
+        }
+        return String.join(", ", names);
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,78 @@
+package study.querydsl.jmh;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 동적 쿼리 작성 방식 비교: BooleanBuilder vs where 다중 파라미터.
+ * *_build 는 쿼리 조립 + JPQL 직렬화 비용만, *_fetch 는 실행까지 포함한 비용을 측정한다.
+ */
+@State(Scope.Thread)
+public class DynamicPredicateBenchmark {
+
+    //"none" 이면 username 조건을 빼고 조회한다.
+    @Param({"member1", "none"})
+    public String username;
+
+    @Param("10")
+    public int age;
+
+    @Benchmark
+    public String booleanBuilder_build(QuerydslBenchmarkState state) {
+        return booleanBuilderQuery(state).toString();
+    }
+
+    @Benchmark
+    public String whereParam_build(QuerydslBenchmarkState state) {
+        return whereParamQuery(state).toString();
+    }
+
+    @Benchmark
+    public List<Member> booleanBuilder_fetch(QuerydslBenchmarkState state) {
+        List<Member> result = booleanBuilderQuery(state).fetch();
+        state.em.clear();
+        return result;
+    }
+
+    @Benchmark
+    public List<Member> whereParam_fetch(QuerydslBenchmarkState state) {
+        List<Member> result = whereParamQuery(state).fetch();
+        state.em.clear();
+        return result;
+    }
+
+    private JPAQuery<Member> booleanBuilderQuery(QuerydslBenchmarkState state) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (!"none".equals(username)) {
+            builder.and(member.username.eq(username));
+        }
+        builder.and(member.age.eq(age));
+        return state.queryFactory
+                .selectFrom(member)
+                .where(builder);
+    }
+
+    private JPAQuery<Member> whereParamQuery(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .selectFrom(member)
+                .where(usernameEq(), ageEq());
+    }
+
+    private BooleanExpression usernameEq() {
+        return "none".equals(username) ? null : member.username.eq(username);
+    }
+
+    private BooleanExpression ageEq() {
+        return member.age.eq(age);
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.codec.MemberTeamBatchCodec;
+import study.querydsl.codec.MemberTeamDtoSerializer;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * /v1/members 응답 포맷별 직렬화 비용 비교. DB 없이 MemberTeamDto 목록만 만들어서 잰다.
+ * json_reflection 은 기본 BeanSerializer, 나머지는 MemberTeamDtoSerializer 를 쓴다.
+ * 포맷별 응답 크기(byte)는 PayloadSize.bytes 보조 카운터로 결과 표에 같이 나온다.
+ */
+@State(Scope.Benchmark)
+public class MemberSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    //마지막 번호는 team 없는 회원
+    @Param("10")
+    public int teams;
+
+    List<MemberTeamDto> members;
+    ObjectMapper reflectionJson;
+    ObjectMapper json;
+    ObjectMapper smile;
+    ObjectMapper cbor;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadSize {
+        //누적하지 않고 매번 대입하므로 결과에는 한 번 직렬화한 크기가 나온다.
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int team = i % (teams + 1);
+            members.add(team == teams
+                    ? new MemberTeamDto(i + 1L, "member" + i, i % 100, null, null)
+                    : new MemberTeamDto(i + 1L, "member" + i, i % 100, team + 1L, "team" + team));
+        }
+
+        SimpleModule module = new SimpleModule().addSerializer(new MemberTeamDtoSerializer());
+        reflectionJson = new ObjectMapper();
+        json = new ObjectMapper().registerModule(module);
+        smile = new ObjectMapper(new SmileFactory()).registerModule(module);
+        cbor = new ObjectMapper(new CBORFactory()).registerModule(module);
+    }
+
+    @Benchmark
+    public byte[] json_reflection(PayloadSize size) throws IOException {
+        return record(size, reflectionJson.writeValueAsBytes(members));
+    }
+
+    @Benchmark
+    public byte[] json_serializer(PayloadSize size) throws IOException {
+        return record(size, json.writeValueAsBytes(members));
+    }
+
+    //server.compression 과 같은 기본 압축 레벨
+    @Benchmark
+    public byte[] json_gzip(PayloadSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            json.writeValue(gzip, members);
+        }
+        return record(size, out.toByteArray());
+    }
+
+    @Benchmark
+    public byte[] smile(PayloadSize size) throws IOException {
+        return record(size, smile.writeValueAsBytes(members));
+    }
+
+    @Benchmark
+    public byte[] cbor(PayloadSize size) throws IOException {
+        return record(size, cbor.writeValueAsBytes(members));
+    }
+
+    @Benchmark
+    public byte[] member_batch(PayloadSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberTeamBatchCodec.encode(members, out);
+        return record(size, out.toByteArray());
+    }
+
+    private static byte[] record(PayloadSize size, byte[] payload) {
+        size.bytes = payload.length;
+        return payload;
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.jmh;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.QMemberDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * QuerydslBasicTest에서 사용하는 DTO 조회 방식별 비용 비교.
+ * 모든 벤치마크는 전체 회원을 MemberDto로 조회한다.
+ */
+public class ProjectionBenchmark {
+
+    @Benchmark
+    public List<MemberDto> bean(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(Projections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(Projections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(Projections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    //@GenerateProjection 으로 생성된 매퍼
+    @Benchmark
+    public List<MemberDto> generatedProjection(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(MemberDtoProjection.of(member))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> tuple(QuerydslBenchmarkState state) {
+        List<Tuple> tuples = state.queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .fetch();
+        List<MemberDto> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Integer age = tuple.get(member.age);
+            result.add(new MemberDto(tuple.get(member.username), age == null ? 0 : age));
+        }
+        return result;
+    }
+}
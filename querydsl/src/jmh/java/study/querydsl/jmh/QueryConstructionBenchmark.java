@@ -0,0 +1,47 @@
+package study.querydsl.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 검색(teamName + age 범위)을 JPQL 문자열로 작성했을 때와 Querydsl로 작성했을 때의 비교.
+ */
+public class QueryConstructionBenchmark {
+
+    private static final String JPQL =
+            "select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)" +
+            " from Member m left join m.team t" +
+            " where t.name = :teamName and m.age >= :ageGoe and m.age <= :ageLoe";
+
+    @Benchmark
+    public List<MemberTeamDto> jpqlString(QuerydslBenchmarkState state) {
+        return state.em.createQuery(JPQL, MemberTeamDto.class)
+                .setParameter("teamName", "temaA")
+                .setParameter("ageGoe", 20)
+                .setParameter("ageLoe", 30)
+                .getResultList();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> querydsl(QuerydslBenchmarkState state) {
+        return state.queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("temaA"),
+                        member.age.goe(20),
+                        member.age.loe(30))
+                .fetch();
+    }
+}
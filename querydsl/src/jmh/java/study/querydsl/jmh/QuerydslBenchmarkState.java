@@ -0,0 +1,59 @@
+package study.querydsl.jmh;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.seed.MemberBulkLoader;
+import study.querydsl.seed.SeedProperties;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 벤치마크 공용 fixture.
+ * 임베디드(in-memory) H2로 애플리케이션 컨텍스트를 띄우고 members 만큼 데이터를 넣는다.
+ * EntityManager는 thread-safe 하지 않으므로 벤치마크는 단일 스레드로 돌린다.
+ */
+@State(Scope.Benchmark)
+public class QuerydslBenchmarkState {
+
+    @Param("100000")
+    public int members;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run("--spring.profiles.active=jmh",
+                        "--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--decorator.datasource.p6spy.enable-logging=false");
+
+        SeedProperties seed = new SeedProperties();
+        seed.setMembers(members);
+        seed.setTeams(10);
+        seed.setThreads(4);
+        seed.setAgeDistribution(SeedProperties.AgeDistribution.UNIFORM);
+        context.getBean(MemberBulkLoader.class).load(seed);
+
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+}
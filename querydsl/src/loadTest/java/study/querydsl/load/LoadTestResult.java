@@ -0,0 +1,48 @@
+package study.querydsl.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 설정 조합 하나의 측정 결과. 지연 시간은 ms 단위.
+ */
+@Getter
+@AllArgsConstructor
+public class LoadTestResult {
+
+    static final String CSV_HEADER =
+            "poolSize,fetchSize,batchSize,seedMillis,seedRowsPerSecond,requests,errors,throughput,p50,p99,max";
+
+    private final int poolSize;
+    private final int fetchSize;
+    private final int batchSize;
+    private final long seedMillis;
+    private final long requests;
+    private final long errors;
+    private final double throughput;
+    private final double p50;
+    private final double p99;
+    private final double max;
+
+    public long getSeedRowsPerSecond(int members) {
+        return seedMillis == 0 ? members : members * 1000L / seedMillis;
+    }
+
+    String toCsv(int members) {
+        return String.format("%d,%d,%d,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f",
+                poolSize, fetchSize, batchSize, seedMillis, getSeedRowsPerSecond(members),
+                requests, errors, throughput, p50, p99, max);
+    }
+
+    String toRow(int members) {
+        return String.format("%8d %9d %9d %10d %12d %9d %7d %10.1f %8.2f %8.2f %9.2f",
+                poolSize, fetchSize, batchSize, seedMillis, getSeedRowsPerSecond(members),
+                requests, errors, throughput, p50, p99, max);
+    }
+
+    static String rowHeader() {
+        return String.format("%8s %9s %9s %10s %12s %9s %7s %10s %8s %8s %9s",
+                "pool", "fetch", "batch", "seed(ms)", "seed(rows/s)",
+                "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "max(ms)");
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.load;
+
+import lombok.Getter;
+import study.querydsl.seed.SeedProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 부하 테스트 설정. ./gradlew loadTest -PloadTest.xxx=... 로 넘긴 값을 system property 로 읽는다.
+ *
+ * poolSizes, fetchSizes, batchSizes 는 콤마로 구분한 목록이며 모든 조합을 차례로 실행한다.
+ */
+@Getter
+public class LoadTestSettings {
+
+    private static final String PREFIX = "loadTest.";
+
+    //데이터 규모
+    private final int members = intValue("members", 100_000);
+    private final int teams = intValue("teams", 10);
+    private final SeedProperties.AgeDistribution ageDistribution =
+            SeedProperties.AgeDistribution.valueOf(value("ageDistribution", "uniform").toUpperCase(Locale.ROOT));
+    private final SeedProperties.TeamDistribution teamDistribution =
+            SeedProperties.TeamDistribution.valueOf(value("teamDistribution", "round_robin").toUpperCase(Locale.ROOT));
+    private final int seedThreads = intValue("seedThreads", 4);
+
+    //부하
+    private final String endpoint = value("endpoint", "/v1/members");
+    private final int concurrency = intValue("concurrency", 32);
+    private final Duration warmup = Duration.parse("PT" + value("warmup", "5s"));
+    private final Duration duration = Duration.parse("PT" + value("duration", "20s"));
+    //false 면 검색 결과 캐시와 쿼리 캐시를 끄고 DB 조회 성능만 잰다.
+    private final boolean caches = Boolean.parseBoolean(value("caches", "false"));
+
+    //스윕 대상
+    private final List<Integer> poolSizes = intList("poolSizes", "5,10,20,40");
+    private final List<Integer> fetchSizes = intList("fetchSizes", "0,100,1000");
+    private final List<Integer> batchSizes = intList("batchSizes", "100");
+
+    //in-memory H2 가 기본. %d 에는 실행 순번이 들어간다. tcp 로 바꾸면 fetch size 영향을 더 잘 볼 수 있다.
+    private final String url = value("url", "jdbc:h2:mem:loadtest%d;DB_CLOSE_DELAY=-1");
+    private final String output = value("output", "build/reports/loadtest/results.csv");
+
+    public SeedProperties seedProperties(int batchSize) {
+        SeedProperties seed = new SeedProperties();
+        seed.setMembers(members);
+        seed.setTeams(teams);
+        seed.setAgeDistribution(ageDistribution);
+        seed.setTeamDistribution(teamDistribution);
+        seed.setThreads(seedThreads);
+        //flush 주기를 batch_size 에 맞춰야 batch insert 효과가 그대로 나온다.
+        seed.setFlushSize(batchSize);
+        return seed;
+    }
+
+    private static String value(String name, String defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static int intValue(String name, int defaultValue) {
+        return Integer.parseInt(value(name, String.valueOf(defaultValue)));
+    }
+
+    private static List<Integer> intList(String name, String defaultValue) {
+        List<Integer> result = new ArrayList<>();
+        for (String token : value(name, defaultValue).split(",")) {
+            if (!token.isBlank()) {
+                result.add(Integer.parseInt(token.trim()));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.seed.MemberBulkLoader;
+import study.querydsl.seed.SeedProperties;
+import study.querydsl.sql.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색 엔드포인트 부하 테스트.
+ *
+ * 커넥션 풀 크기 x fetch size x batch size 조합마다 애플리케이션을 새로 띄우고 (in-memory H2, 랜덤 포트)
+ * MemberBulkLoader 로 시드 데이터를 넣은 뒤 동시 요청을 보내서 처리량과 p50/p99 지연 시간을 잰다.
+ * batch size 는 시드 적재 시간(seed rows/s)에, 풀 크기와 fetch size 는 검색 지연 시간에 영향을 준다.
+ *
+ * 실행: ./gradlew loadTest -PloadTest.poolSizes=5,10,20 -PloadTest.concurrency=64
+ * 결과는 표로 출력하고 loadTest.output (기본 build/reports/loadtest/results.csv) 에 저장한다.
+ */
+public class SearchLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        List<LoadTestResult> results = new ArrayList<>();
+
+        int run = 0;
+        for (int poolSize : settings.getPoolSizes()) {
+            for (int fetchSize : settings.getFetchSizes()) {
+                for (int batchSize : settings.getBatchSizes()) {
+                    results.add(run(settings, run++, poolSize, fetchSize, batchSize));
+                }
+            }
+        }
+
+        System.out.printf("%nmembers=%d, teams=%d, endpoint=%s, concurrency=%d, duration=%s, caches=%s%n",
+                settings.getMembers(), settings.getTeams(), settings.getEndpoint(),
+                settings.getConcurrency(), settings.getDuration(), settings.isCaches());
+        System.out.println(LoadTestResult.rowHeader());
+        for (LoadTestResult result : results) {
+            System.out.println(result.toRow(settings.getMembers()));
+        }
+        writeCsv(settings, results);
+    }
+
+    private static LoadTestResult run(LoadTestSettings settings, int run,
+                                      int poolSize, int fetchSize, int batchSize) throws InterruptedException {
+        System.out.printf("[run %d] pool=%d, fetch=%d, batch=%d%n", run, poolSize, fetchSize, batchSize);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run(arguments(settings, run, poolSize, fetchSize, batchSize));
+        try {
+            SeedProperties seed = settings.seedProperties(batchSize);
+            long seedStart = System.nanoTime();
+            context.getBean(MemberBulkLoader.class).load(seed);
+            long seedMillis = (System.nanoTime() - seedStart) / 1_000_000;
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            SearchTrafficDriver driver = new SearchTrafficDriver(port, settings, seed);
+            LatencyHistogram latency = driver.run();
+
+            double seconds = settings.getDuration().toMillis() / 1000.0;
+            return new LoadTestResult(poolSize, fetchSize, batchSize, seedMillis,
+                    latency.getCount(), driver.getErrors(), latency.getCount() / seconds,
+                    latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.getMaxMicros() / 1000.0);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static String[] arguments(LoadTestSettings settings, int run,
+                                       int poolSize, int fetchSize, int batchSize) {
+        List<String> args = new ArrayList<>(List.of(
+                //local 프로파일의 InitMember 가 돌지 않게 한다.
+                "--spring.profiles.active=loadtest",
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + Math.max(200, settings.getConcurrency()),
+                "--spring.datasource.url=" + String.format(settings.getUrl(), run),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                //풀 크기를 고정한다. (minimum-idle = maximum-pool-size)
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                "--spring.jpa.properties.hibernate.jdbc.fetch_size=" + fetchSize,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.root=warn"));
+        if (!settings.isCaches()) {
+            args.add("--member.search-cache.max-size=0");
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private static void writeCsv(LoadTestSettings settings, List<LoadTestResult> results) throws IOException {
+        Path output = Paths.get(settings.getOutput());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(LoadTestResult.CSV_HEADER);
+        for (LoadTestResult result : results) {
+            lines.add(result.toCsv(settings.getMembers()));
+        }
+        Files.write(output, lines, StandardCharsets.UTF_8);
+        System.out.println("results: " + output.toAbsolutePath());
+    }
+}
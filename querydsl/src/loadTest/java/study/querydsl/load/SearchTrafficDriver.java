@@ -0,0 +1,125 @@
+package study.querydsl.load;
+
+import study.querydsl.seed.SeedProperties;
+import study.querydsl.sql.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * concurrency 개의 스레드가 쉬지 않고 검색 요청을 보낸다. (closed model)
+ *
+ * warmup 동안의 요청은 버리고, 이후 duration 동안의 지연 시간만 히스토그램에 기록한다.
+ * 검색 조건은 시드 데이터 기준으로 매번 무작위로 만든다.
+ *  - 팀 + 5살 범위
+ *  - 회원 이름 일치
+ *  - 1살 범위
+ */
+public class SearchTrafficDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final LoadTestSettings settings;
+    private final SeedProperties seed;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    public SearchTrafficDriver(int port, LoadTestSettings settings, SeedProperties seed) {
+        this.baseUrl = "http://localhost:" + port + settings.getEndpoint();
+        this.settings = settings;
+        this.seed = seed;
+    }
+
+    public LatencyHistogram run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmup().toNanos();
+        long end = measureFrom + settings.getDuration().toNanos();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            Thread thread = new Thread(() -> loop(measureFrom, end), "load-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    private void loop(long measureFrom, long end) {
+        while (true) {
+            long begin = System.nanoTime();
+            if (begin >= end) {
+                return;
+            }
+            boolean success = send(randomQuery());
+            long elapsed = System.nanoTime() - begin;
+            if (begin < measureFrom) {
+                continue;
+            }
+            if (success) {
+                latency.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+            } else {
+                errors.increment();
+            }
+        }
+    }
+
+    private boolean send(String query) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?" + query))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        try {
+            //본문을 끝까지 읽어야 직렬화/전송 시간까지 포함된다.
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String randomQuery() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int age = seed.getMinAge() + random.nextInt(seed.getMaxAge() - seed.getMinAge() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                return "teamName=" + teamName(random.nextInt(Math.max(1, seed.getTeams())))
+                        + "&ageGoe=" + age + "&ageLoe=" + (age + 4);
+            case 1:
+                return "username=" + seed.getMemberNamePrefix() + random.nextInt(Math.max(1, seed.getMembers()));
+            default:
+                return "ageGoe=" + age + "&ageLoe=" + age;
+        }
+    }
+
+    //MemberBulkLoader 와 같은 규칙
+    private String teamName(int index) {
+        return index < 26
+                ? seed.getTeamNamePrefix() + (char) ('A' + index)
+                : seed.getTeamNamePrefix() + index;
+    }
+}
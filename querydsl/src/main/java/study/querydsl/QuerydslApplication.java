@@ -3,19 +3,33 @@ package study.querydsl;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import study.querydsl.startup.QueryTypeInitializer;
 
 import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class QuerydslApplication {
 
+	//시작 단계(step) 기록 개수. 빈 하나당 1~2개 정도 쌓인다. 결과는 /v1/startup
+	private static final int STARTUP_STEP_CAPACITY = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(QuerydslApplication.class, args);
+		SpringApplication application = new SpringApplication(QuerydslApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+		application.run(args);
 	}
 
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em){
+	JPAQueryFactory jpaQueryFactory(EntityManager em, ApplicationStartup applicationStartup){
+		StartupStep step = applicationStartup.start(QueryTypeInitializer.STEP_NAME);
+		step.tag("count", String.valueOf(QueryTypeInitializer.initialize(em.getMetamodel(), step)));
+		step.end();
 		return new JPAQueryFactory(em);
 	}
 
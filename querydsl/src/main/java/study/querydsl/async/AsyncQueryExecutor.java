@@ -0,0 +1,142 @@
+package study.querydsl.async;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.dto.BulkheadStatsDto;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 서블릿 스레드가 아닌 별도 executor(JDK 21 이상이면 가상 스레드)에서 실행한다.
+ *
+ * - bulkhead 이름(엔드포인트)별로 동시 실행 수를 제한하고, 넘치면 BulkheadFullException(503)으로 바로 거절한다.
+ * - 읽기 전용 트랜잭션 안에서 실행하며, 남은 시간을 javax.persistence.query.timeout 으로 넘겨서
+ *   응답 타임아웃이 지나면 DB 쪽 쿼리도 취소되게 한다.
+ * - 타임아웃이 나면 QueryTimeoutExceededException(504)으로 완료된다.
+ */
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+
+    static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final AsyncQueryProperties properties;
+    private final ExecutorService executor;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public AsyncQueryExecutor(EntityManager em, PlatformTransactionManager transactionManager,
+                              AsyncQueryProperties properties) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.properties = properties;
+        this.executor = VirtualThreads.newExecutor("async-query", properties.getThreads());
+    }
+
+    public <T> CompletableFuture<T> submit(String bulkheadName, Supplier<T> query) {
+        return submit(bulkheadName, properties.getTimeout(), query);
+    }
+
+    public <T> CompletableFuture<T> submit(String bulkheadName, Duration timeout, Supplier<T> query) {
+        Bulkhead bulkhead = bulkhead(bulkheadName);
+        try {
+            bulkhead.acquire();
+        } catch (BulkheadFullException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> execute(bulkhead, deadline, query), executor);
+        } catch (RejectedExecutionException e) {
+            bulkhead.release(false);
+            return CompletableFuture.failedFuture(new BulkheadFullException("executor가 종료되었습니다."));
+        }
+        return future
+                .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .exceptionally(e -> {
+                    throw translate(bulkheadName, timeout, bulkhead, e);
+                });
+    }
+
+    public List<BulkheadStatsDto> stats() {
+        List<BulkheadStatsDto> result = new ArrayList<>();
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            result.add(bulkhead.stats());
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Bulkhead bulkhead, long deadline, Supplier<T> query) {
+        boolean success = false;
+        try {
+            T result = readOnlyTx.execute(status -> {
+                //세션에 설정하면 이 트랜잭션에서 만드는 모든 쿼리(JPQL, Querydsl)에 적용된다.
+                em.setProperty(QUERY_TIMEOUT_HINT, remainingMillis(deadline));
+                return query.get();
+            });
+            success = true;
+            return result;
+        } finally {
+            bulkhead.release(success);
+        }
+    }
+
+    private static int remainingMillis(long deadline) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        //JDBC query timeout은 초 단위로 올림되므로 최소 1ms 이상만 넘긴다.
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, remaining));
+    }
+
+    private Bulkhead bulkhead(String name) {
+        return bulkheads.computeIfAbsent(name, n ->
+                new Bulkhead(n, properties.getBulkheads().getOrDefault(n, properties.getMaxConcurrent())));
+    }
+
+    private RuntimeException translate(String bulkheadName, Duration timeout, Bulkhead bulkhead, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException || isQueryTimeout(cause)) {
+            bulkhead.timedOut();
+            return new QueryTimeoutExceededException(
+                    "조회 시간이 초과되었습니다. bulkhead=" + bulkheadName + ", timeout=" + timeout, cause);
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new CompletionException(cause);
+    }
+
+    private static boolean isQueryTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof javax.persistence.QueryTimeoutException
+                    || t instanceof org.hibernate.QueryTimeoutException
+                    || t instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
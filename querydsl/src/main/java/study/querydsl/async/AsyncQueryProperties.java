@@ -0,0 +1,23 @@
+package study.querydsl.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "async-query")
+public class AsyncQueryProperties {
+
+    //가상 스레드를 쓸 수 없을 때(JDK 21 미만) 플랫폼 스레드 풀 크기. bulkhead 합계보다 크게 잡는다.
+    private int threads = 32;
+    //bulkhead 별 동시 실행 수 기본값. 모든 bulkhead 합계가 커넥션 풀보다 작아야 한다.
+    private int maxConcurrent = 2;
+    //bulkhead 이름별 동시 실행 수
+    private Map<String, Integer> bulkheads = new HashMap<>();
+    //응답까지 기다리는 최대 시간. 남은 시간이 JDBC query timeout 으로 전달된다.
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,55 @@
+package study.querydsl.async;
+
+import study.querydsl.dto.BulkheadStatsDto;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동시 실행 수 제한. 자리가 없으면 기다리지 않고 바로 거절한다.
+ * 타임아웃으로 응답을 먼저 돌려줘도 쿼리가 실제로 끝날 때까지 자리를 차지한다.
+ */
+class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    Bulkhead(String name, int maxConcurrent) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    void acquire() {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new BulkheadFullException("동시 실행 수를 초과했습니다. bulkhead=" + name + ", max=" + maxConcurrent);
+        }
+        accepted.increment();
+    }
+
+    void release(boolean success) {
+        permits.release();
+        if (success) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void timedOut() {
+        timedOut.increment();
+    }
+
+    BulkheadStatsDto stats() {
+        return new BulkheadStatsDto(name, maxConcurrent, maxConcurrent - permits.availablePermits(),
+                accepted.sum(), rejected.sum(), completed.sum(), failed.sum(), timedOut.sum());
+    }
+}
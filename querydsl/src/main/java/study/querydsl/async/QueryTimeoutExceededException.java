@@ -0,0 +1,12 @@
+package study.querydsl.async;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class QueryTimeoutExceededException extends RuntimeException {
+
+    public QueryTimeoutExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "bulk-dml")
+public class BulkDmlProperties {
+
+    //한 트랜잭션에서 처리할 행 수 (pk 범위 기준)
+    private int chunkSize = 1_000;
+    //초당 처리 행 수 제한. 0 이면 제한 없음
+    private int maxRowsPerSecond = 0;
+}
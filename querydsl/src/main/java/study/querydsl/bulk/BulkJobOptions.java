@@ -0,0 +1,15 @@
+package study.querydsl.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 작업별 옵션. null 인 값은 BulkDmlProperties 기본값을 쓴다.
+ */
+@Getter @Setter
+public class BulkJobOptions {
+    private Integer chunkSize;
+    private Integer maxRowsPerSecond;
+    //false 면 실패한 체크포인트가 있어도 처음부터 다시 실행한다.
+    private boolean resume = true;
+}
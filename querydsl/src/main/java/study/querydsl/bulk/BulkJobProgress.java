@@ -0,0 +1,31 @@
+package study.querydsl.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.entity.BulkJobStatus;
+
+@Getter
+@ToString
+public class BulkJobProgress {
+    private final String jobName;
+    private final BulkJobStatus status;
+    private final Long lastId;
+    private final long processedRows;
+    private final long chunks;
+    //이번 실행에서 처리한 행 수 기준
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+    private final String error;
+
+    public BulkJobProgress(String jobName, BulkJobStatus status, Long lastId, long processedRows, long chunks,
+                           long elapsedMillis, long rowsPerSecond, String error) {
+        this.jobName = jobName;
+        this.status = status;
+        this.lastId = lastId;
+        this.processedRows = processedRows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.error = error;
+    }
+}
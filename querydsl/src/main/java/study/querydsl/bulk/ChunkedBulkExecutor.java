@@ -0,0 +1,336 @@
+package study.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.BulkJobStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Querydsl 벌크 update/delete를 pk 범위 chunk로 나눠서 실행한다.
+ *
+ * - chunk 하나 = 트랜잭션 하나. 테이블 전체를 한 문장으로 잡고 있지 않는다.
+ * - chunk 경계는 조건에 맞는 행을 pk 순으로 chunkSize 개씩 끊어서 정한다. (pk가 듬성듬성해도 chunk 크기가 일정)
+ * - 진행 위치(BulkJobCheckpoint)를 chunk와 같은 트랜잭션에 저장하므로 실패 후 다시 실행하면 이어서 처리한다.
+ * - chunk 마다 flush/clear 하고 2차 캐시에서 해당 엔티티를 제거한다.
+ *
+ * 다시 실행할 때는 같은 조건으로 호출해야 한다.
+ * update/delete 는 호출한 스레드에서 실행하며, chunk 단위로 커밋해야 하므로 트랜잭션 밖에서 호출해야 한다.
+ * submitUpdate 는 옵션을 검증하고 작업을 등록한 뒤 백그라운드에서 하나씩 실행한다. 진행 상황은 progress() 로 본다.
+ * (앞 작업이 끝날 때까지 기다리는 작업도 RUNNING 으로 보인다)
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor implements DisposableBean {
+
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkDmlProperties properties;
+
+    //chunk 마다 커넥션을 쓰므로 작업은 한 번에 하나만 실행한다.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(VirtualThreads.namedThreadFactory("bulk-job"));
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+    public ChunkedBulkExecutor(EntityManager em, EntityManagerFactory entityManagerFactory,
+                               JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                               BulkDmlProperties properties) {
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    public BulkJobProgress update(String jobName, EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                  Consumer<JPAUpdateClause> set, BulkJobOptions options) {
+        checkNoTransaction(jobName);
+        return execute(start(jobName, options), entity, id, where, updateDml(entity, where, set));
+    }
+
+    public BulkJobProgress delete(String jobName, EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                  BulkJobOptions options) {
+        checkNoTransaction(jobName);
+        return execute(start(jobName, options), entity, id, where, range -> {
+            JPADeleteClause delete = queryFactory.delete(entity).where(where, range);
+            return delete.execute();
+        });
+    }
+
+    /**
+     * 옵션을 검증하고 작업을 등록한 뒤 백그라운드에서 실행한다. 등록 직후의 진행 상황을 돌려준다.
+     * 옵션이 잘못되면 InvalidBulkJobOptionsException(400)
+     */
+    public BulkJobProgress submitUpdate(String jobName, EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                        Consumer<JPAUpdateClause> set, BulkJobOptions options) {
+        Run run = start(jobName, options);
+        try {
+            executor.execute(() -> {
+                try {
+                    execute(run, entity, id, where, updateDml(entity, where, set));
+                } catch (RuntimeException e) {
+                    //fail() 에서 로그와 체크포인트를 남겼다.
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //종료 중
+            fail(run, e);
+            throw e;
+        }
+        return run.snapshot();
+    }
+
+    public List<BulkJobProgress> progress() {
+        List<BulkJobProgress> result = new ArrayList<>();
+        for (Run run : runs.values()) {
+            result.add(run.snapshot());
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private Function<Predicate, Long> updateDml(EntityPath<?> entity, Predicate where, Consumer<JPAUpdateClause> set) {
+        return range -> {
+            JPAUpdateClause update = queryFactory.update(entity).where(where, range);
+            set.accept(update);
+            return update.execute();
+        };
+    }
+
+    private static void checkNoTransaction(String jobName) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("chunk 단위로 커밋해야 하므로 트랜잭션 밖에서 호출해야 합니다. job=" + jobName);
+        }
+    }
+
+    //옵션을 검증하고 실행 중인 작업으로 등록한다.
+    private Run start(String jobName, BulkJobOptions options) {
+        BulkJobOptions opts = options == null ? new BulkJobOptions() : options;
+        int chunkSize = opts.getChunkSize() != null ? opts.getChunkSize() : properties.getChunkSize();
+        int maxRowsPerSecond = opts.getMaxRowsPerSecond() != null
+                ? opts.getMaxRowsPerSecond() : properties.getMaxRowsPerSecond();
+        if (chunkSize <= 0) {
+            throw new InvalidBulkJobOptionsException("chunkSize 는 1 이상이어야 합니다: " + chunkSize);
+        }
+        if (maxRowsPerSecond < 0) {
+            throw new InvalidBulkJobOptionsException("maxRowsPerSecond 는 0(제한 없음) 이상이어야 합니다: " + maxRowsPerSecond);
+        }
+
+        Run run = new Run(jobName, chunkSize, maxRowsPerSecond, opts.isResume());
+        runs.compute(jobName, (name, previous) -> {
+            if (previous != null && previous.status == BulkJobStatus.RUNNING) {
+                throw new IllegalStateException("이미 실행 중인 작업입니다. job=" + jobName);
+            }
+            return run;
+        });
+        return run;
+    }
+
+    private BulkJobProgress execute(Run run, EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                    Function<Predicate, Long> chunkDml) {
+        String jobName = run.jobName;
+        int chunkSize = run.chunkSize;
+        try {
+            BulkJobCheckpoint start = transactionTemplate.execute(status -> begin(jobName, run.resume));
+            run.started(start);
+            log.info("bulk job started: job={}, entity={}, chunkSize={}, resumeFrom={}",
+                    jobName, entity, chunkSize, start.getLastId());
+
+            while (true) {
+                Long lastId = run.lastId;
+                ChunkResult chunk = transactionTemplate.execute(status -> {
+                    Long upper = upperBound(entity, id, where, lastId, chunkSize);
+                    if (upper == null) {
+                        em.find(BulkJobCheckpoint.class, jobName).completed();
+                        return null;
+                    }
+                    long rows = chunkDml.apply(range(id, lastId, upper));
+                    em.find(BulkJobCheckpoint.class, jobName).chunkCommitted(upper, rows);
+                    //lecture의 bulk 연산 이후 em.flush(); em.clear(); 를 chunk 마다 대신 해준다.
+                    em.flush();
+                    em.clear();
+                    return new ChunkResult(upper, rows);
+                });
+                if (chunk == null) {
+                    break;
+                }
+                entityManagerFactory.getCache().evict(entity.getType());
+                run.chunkCommitted(chunk);
+                log.info("bulk job progress: job={}, chunks={}, rows={}, lastId={}, {} rows/s",
+                        jobName, run.chunks, run.processedRows, run.lastId, run.rowsPerSecond());
+                throttle(run, run.maxRowsPerSecond);
+            }
+        } catch (RuntimeException e) {
+            fail(run, e);
+            throw e;
+        }
+
+        run.status = BulkJobStatus.COMPLETED;
+        log.info("bulk job completed: job={}, chunks={}, rows={}, elapsed={}ms",
+                jobName, run.chunks, run.processedRows, run.elapsedMillis());
+        return run.snapshot();
+    }
+
+    private BulkJobCheckpoint begin(String jobName, boolean resume) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName);
+        if (checkpoint == null) {
+            checkpoint = new BulkJobCheckpoint(jobName);
+            em.persist(checkpoint);
+        } else if (resume && checkpoint.getStatus() != BulkJobStatus.COMPLETED) {
+            checkpoint.resumed();
+        } else {
+            checkpoint.reset();
+        }
+        return checkpoint;
+    }
+
+    private Long upperBound(EntityPath<?> entity, NumberPath<Long> id, Predicate where, Long lastId, int chunkSize) {
+        Long upper = queryFactory
+                .select(id)
+                .from(entity)
+                .where(where, after(id, lastId))
+                .orderBy(id.asc())
+                .offset(chunkSize - 1)
+                .fetchFirst();
+        if (upper != null) {
+            return upper;
+        }
+        //남은 행이 chunkSize 보다 적은 마지막 chunk
+        return queryFactory
+                .select(id.max())
+                .from(entity)
+                .where(where, after(id, lastId))
+                .fetchOne();
+    }
+
+    private BooleanExpression after(NumberPath<Long> id, Long lastId) {
+        return lastId == null ? null : id.gt(lastId);
+    }
+
+    private Predicate range(NumberPath<Long> id, Long lastId, Long upper) {
+        return lastId == null ? id.loe(upper) : id.gt(lastId).and(id.loe(upper));
+    }
+
+    private void throttle(Run run, int maxRowsPerSecond) {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = run.rowsThisRun * 1_000_000_000L / maxRowsPerSecond;
+        long sleepNanos = expectedNanos - (System.nanoTime() - run.startedAt);
+        if (sleepNanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk job interrupted. job=" + run.jobName, e);
+        }
+    }
+
+    private void fail(Run run, RuntimeException e) {
+        run.status = BulkJobStatus.FAILED;
+        run.error = e.toString();
+        log.error("bulk job failed: job={}, chunks={}, rows={}, lastId={}",
+                run.jobName, run.chunks, run.processedRows, run.lastId, e);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, run.jobName);
+                if (checkpoint != null) {
+                    checkpoint.failed(e.toString());
+                }
+            });
+        } catch (RuntimeException checkpointError) {
+            //체크포인트는 마지막으로 커밋된 chunk 위치를 그대로 가지고 있으므로 재실행에는 문제 없다.
+            log.warn("bulk job checkpoint status update failed: job={}", run.jobName, checkpointError);
+        }
+    }
+
+    private static final class ChunkResult {
+        private final Long upper;
+        private final long rows;
+
+        private ChunkResult(Long upper, long rows) {
+            this.upper = upper;
+            this.rows = rows;
+        }
+    }
+
+    private static final class Run {
+        private final String jobName;
+        private final int chunkSize;
+        private final int maxRowsPerSecond;
+        private final boolean resume;
+        private volatile long startedAt = System.nanoTime();
+        private volatile BulkJobStatus status = BulkJobStatus.RUNNING;
+        private volatile Long lastId;
+        private volatile long processedRows;
+        private volatile long chunks;
+        private volatile long rowsThisRun;
+        private volatile String error;
+
+        private Run(String jobName, int chunkSize, int maxRowsPerSecond, boolean resume) {
+            this.jobName = jobName;
+            this.chunkSize = chunkSize;
+            this.maxRowsPerSecond = maxRowsPerSecond;
+            this.resume = resume;
+        }
+
+        private void started(BulkJobCheckpoint checkpoint) {
+            //앞 작업을 기다린 시간은 처리 속도에 넣지 않는다.
+            startedAt = System.nanoTime();
+            lastId = checkpoint.getLastId();
+            processedRows = checkpoint.getProcessedRows();
+            chunks = checkpoint.getChunks();
+        }
+
+        private void chunkCommitted(ChunkResult chunk) {
+            lastId = chunk.upper;
+            processedRows += chunk.rows;
+            rowsThisRun += chunk.rows;
+            chunks++;
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - startedAt) / 1_000_000;
+        }
+
+        private long rowsPerSecond() {
+            long elapsedMillis = elapsedMillis();
+            return elapsedMillis == 0 ? rowsThisRun : rowsThisRun * 1000 / elapsedMillis;
+        }
+
+        private BulkJobProgress snapshot() {
+            return new BulkJobProgress(jobName, status, lastId, processedRows, chunks,
+                    elapsedMillis(), rowsPerSecond(), error);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.bulk;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBulkJobOptionsException extends RuntimeException {
+
+    public InvalidBulkJobOptionsException(String message) {
+        super(message);
+    }
+}
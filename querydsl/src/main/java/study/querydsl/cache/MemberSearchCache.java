@@ -0,0 +1,137 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.WriterRouting;
+import study.querydsl.dto.CacheStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.SqlStatementListener;
+import study.querydsl.sql.SqlStatements;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * MemberSearchCondition 검색 결과 캐시 (LRU + TTL).
+ *
+ * member/team 테이블에 DML이 나가면 전체를 무효화한다.
+ * StatementInspector 단계에서 감지하기 때문에 엔티티 변경뿐 아니라 Querydsl 벌크 update/delete도 잡힌다.
+ * 트랜잭션 안에서 변경된 경우에는 커밋/롤백 이후에 한 번 더 무효화해서,
+ * 그 사이 다른 트랜잭션이 이전 데이터를 다시 채워넣은 경우도 정리한다.
+ */
+@Component
+public class MemberSearchCache implements SqlStatementListener {
+
+    private static final Set<String> TABLES = Set.of("member", "team");
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<MemberSearchKey, Entry> entries;
+    //무효화될 때마다 증가. 로딩 도중 무효화되면 그 결과는 캐시에 넣지 않는다.
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public MemberSearchCache(@Value("${member.search-cache.max-size:1000}") int maxSize,
+                             @Value("${member.search-cache.ttl:60s}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchKey, Entry> eldest) {
+                if (size() > MemberSearchCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition,
+                                   Function<MemberSearchCondition, List<MemberTeamDto>> loader) {
+        MemberSearchKey key = MemberSearchKey.of(condition);
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        //무효화 직후 다시 채우는 값이므로 복제가 늦은 replica 가 아니라 writer 에서 읽는다.
+        List<MemberTeamDto> value = Collections.unmodifiableList(
+                new ArrayList<>(WriterRouting.call(() -> loader.apply(condition))));
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry(value, now));
+            }
+        }
+        return value;
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            entries.clear();
+            generation++;
+        }
+        invalidations.increment();
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        String table = SqlStatements.writeTarget(sql);
+        if (table == null || !TABLES.contains(table)) {
+            return;
+        }
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchCache.this);
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    public synchronized CacheStatsDto stats() {
+        return new CacheStatsDto(entries.size(), maxSize,
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    private static final class Entry {
+        private final List<MemberTeamDto> value;
+        private final long loadedAt;
+
+        private Entry(List<MemberTeamDto> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
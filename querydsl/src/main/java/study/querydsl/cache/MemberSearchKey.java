@@ -0,0 +1,53 @@
+package study.querydsl.cache;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Locale;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 캐시 키로 쓰기 위해 정규화한 검색 조건.
+ * 검색 쿼리에서 무시되는 빈 문자열은 null과 같은 키가 되도록 맞춘다.
+ */
+@EqualsAndHashCode
+@ToString
+final class MemberSearchKey {
+    private final String username;
+    private final String usernameContains;
+    private final String usernameStartsWith;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+
+    private MemberSearchKey(String username, String usernameContains, String usernameStartsWith,
+                            String teamName, Integer ageGoe, Integer ageLoe) {
+        this.username = username;
+        this.usernameContains = usernameContains;
+        this.usernameStartsWith = usernameStartsWith;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+    }
+
+    static MemberSearchKey of(MemberSearchCondition condition) {
+        return new MemberSearchKey(
+                normalize(condition.getUsername()),
+                ignoreCase(condition.getUsernameContains()),
+                ignoreCase(condition.getUsernameStartsWith()),
+                normalize(condition.getTeamName()),
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+
+    private static String normalize(String value) {
+        return hasText(value) ? value : null;
+    }
+
+    //대소문자 구분 없는 조건은 같은 결과이므로 같은 키로 만든다.
+    private static String ignoreCase(String value) {
+        return hasText(value) ? value.toLowerCase(Locale.ROOT) : null;
+    }
+}
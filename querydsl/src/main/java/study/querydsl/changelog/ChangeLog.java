@@ -0,0 +1,214 @@
+package study.querydsl.changelog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * memory-map 한 segment 파일들로 된 append-only 로그.
+ *
+ * - 레코드마다 0부터 증가하는 offset 이 붙고, 읽는 쪽은 마지막으로 받은 offset + 1 부터 다시 읽으면 된다.
+ * - segment 가 차면 다음 offset 이름으로 새 파일을 만들고, max-segments 를 넘으면 오래된 파일을 지운다.
+ * - 열 때 마지막까지 읽어서 쓰다 만 레코드를 버린다.
+ * 쓰기/읽기 모두 이 객체에서 잠근다. 쓰는 쪽은 ChangeLogRelay 스레드 하나다.
+ */
+@Slf4j
+public class ChangeLog implements Closeable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final TreeMap<Long, ChangeLogSegment> segments = new TreeMap<>();
+    private long lastForceNanos = System.nanoTime();
+    private boolean dirty;
+
+    private ChangeLog(Path directory, int segmentSize, int maxSegments, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+    }
+
+    public static ChangeLog open(Path directory, int segmentSize, int maxSegments,
+                                 FsyncPolicy fsyncPolicy, Duration fsyncInterval) throws IOException {
+        if (segmentSize <= ChangeLogSegment.HEADER_BYTES) {
+            throw new IllegalArgumentException("segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        ChangeLog changeLog = new ChangeLog(directory, segmentSize, maxSegments, fsyncPolicy, fsyncInterval);
+        try {
+            changeLog.load();
+        } catch (IOException | RuntimeException e) {
+            changeLog.close();
+            throw e;
+        }
+        return changeLog;
+    }
+
+    /**
+     * 레코드들을 순서대로 붙이고 첫 레코드의 offset 을 돌려준다. fsync 정책에 따라 force 까지 한 뒤 돌아온다.
+     */
+    public synchronized long append(List<byte[]> payloads) {
+        long first = endOffset();
+        try {
+            for (byte[] payload : payloads) {
+                if (payload.length > maxRecordSize()) {
+                    throw new IllegalArgumentException("record larger than segment: " + payload.length + " bytes");
+                }
+                if (!segments.lastEntry().getValue().append(payload)) {
+                    roll();
+                    segments.lastEntry().getValue().append(payload);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!payloads.isEmpty()) {
+            dirty = true;
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS
+                || (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos)) {
+            force();
+        }
+        return first;
+    }
+
+    /**
+     * offset 부터 최대 max 개. 이미 지워진 offset 이면 남아 있는 첫 레코드부터 읽는다.
+     */
+    public synchronized List<ChangeLogRecord> read(long offset, int max) {
+        List<ChangeLogRecord> result = new ArrayList<>(Math.min(max, 1024));
+        long from = Math.max(offset, startOffset());
+        if (from >= endOffset() || max <= 0) {
+            return result;
+        }
+        for (ChangeLogSegment segment : segments.tailMap(segments.floorKey(from), true).values()) {
+            if (result.size() >= max) {
+                break;
+            }
+            if (from < segment.nextOffset()) {
+                segment.read(Math.max(from, segment.baseOffset()), max, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 레코드 하나의 최대 payload 크기. 이보다 크면 append 할 수 없다.
+     */
+    public int maxRecordSize() {
+        return segmentSize - ChangeLogSegment.HEADER_BYTES;
+    }
+
+    /**
+     * 남아 있는 첫 레코드의 offset
+     */
+    public synchronized long startOffset() {
+        return segments.firstKey();
+    }
+
+    /**
+     * 다음에 쓸 offset (= 마지막 레코드 offset + 1)
+     */
+    public synchronized long endOffset() {
+        return segments.lastEntry().getValue().nextOffset();
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 아직 내리지 않은 쓰기를 디스크에 내린다. 활성 segment 만 내리면 된다. (지난 segment 는 roll 할 때 내렸다)
+     */
+    public synchronized void force() {
+        if (!dirty) {
+            return;
+        }
+        segments.lastEntry().getValue().force();
+        dirty = false;
+        lastForceNanos = System.nanoTime();
+    }
+
+    /**
+     * fsync=INTERVAL 에서 append 가 없는 동안에도 간격이 지나면 내리도록 주기적으로 호출한다.
+     */
+    public synchronized void forceIfDue() {
+        if (fsyncPolicy != FsyncPolicy.NEVER && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+            force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!segments.isEmpty()) {
+            force();
+        }
+        for (ChangeLogSegment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("change log segment close failed", e);
+            }
+        }
+        segments.clear();
+    }
+
+    private void load() throws IOException {
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("\\d{20}\\.log"))
+                    .forEach(name -> baseOffsets.add(Long.parseLong(name.substring(0, 20))));
+        }
+        baseOffsets.sort(null);
+        for (long baseOffset : baseOffsets) {
+            Map.Entry<Long, ChangeLogSegment> previous = segments.lastEntry();
+            if (previous != null && previous.getValue().nextOffset() != baseOffset) {
+                //앞 segment 의 끝이 잘렸다(fsync=NEVER 에서 장애). 이 뒤의 offset 은 이어지지 않으므로 지운다.
+                //남겨두면 나중에 같은 이름으로 roll 할 때 예전 레코드가 다시 읽힌다.
+                log.warn("change log gap before segment {}, expected offset {}. deleting",
+                        baseOffset, previous.getValue().nextOffset());
+                Files.deleteIfExists(ChangeLogSegment.fileName(directory, baseOffset));
+                continue;
+            }
+            segments.put(baseOffset, ChangeLogSegment.open(directory, baseOffset, segmentSize));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, ChangeLogSegment.open(directory, 0, segmentSize));
+        }
+        log.info("change log opened. directory={}, segments={}, offsets=[{}, {})",
+                directory, segments.size(), startOffset(), endOffset());
+    }
+
+    private void roll() throws IOException {
+        ChangeLogSegment last = segments.lastEntry().getValue();
+        //다음 segment 의 레코드만 디스크에 있고 앞의 레코드가 없는 일이 없도록 먼저 내린다.
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            last.force();
+        }
+        long baseOffset = last.nextOffset();
+        segments.put(baseOffset, ChangeLogSegment.open(directory, baseOffset, segmentSize));
+        while (segments.size() > maxSegments) {
+            ChangeLogSegment oldest = segments.pollFirstEntry().getValue();
+            try {
+                oldest.delete();
+            } catch (IOException e) {
+                log.warn("change log segment delete failed. base offset={}", oldest.baseOffset(), e);
+            }
+        }
+    }
+}
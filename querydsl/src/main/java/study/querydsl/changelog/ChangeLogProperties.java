@@ -0,0 +1,29 @@
+package study.querydsl.changelog;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "change-log")
+public class ChangeLogProperties {
+
+    //false 면 outbox 에 기록하지 않고 로그 파일도 만들지 않는다.
+    private boolean enabled = false;
+    //segment 파일을 둘 디렉터리
+    private String directory = "data/change-log";
+    //segment 하나의 크기. 파일 전체를 memory-map 한다.
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    //남겨둘 segment 수. 넘치면 오래된 것부터 지운다.
+    private int maxSegments = 16;
+    private FsyncPolicy fsync = FsyncPolicy.ALWAYS;
+    //fsync=INTERVAL 일 때 force 간격
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+    //outbox 를 읽어서 로그로 옮기는 주기
+    private Duration drainInterval = Duration.ofMillis(200);
+    //한 트랜잭션에서 옮길 outbox row 수
+    private int batchSize = 500;
+}
@@ -0,0 +1,17 @@
+package study.querydsl.changelog;
+
+import lombok.Getter;
+
+/**
+ * 변경 로그의 레코드 하나. offset 은 로그 전체에서 0부터 1씩 증가한다.
+ */
+@Getter
+public class ChangeLogRecord {
+    private final long offset;
+    private final byte[] payload;
+
+    public ChangeLogRecord(long offset, byte[] payload) {
+        this.offset = offset;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,201 @@
+package study.querydsl.changelog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.dto.ChangeLogPageDto;
+import study.querydsl.dto.ChangeRecordDto;
+import study.querydsl.entity.ChangeOutboxDeadLetter;
+import study.querydsl.entity.ChangeOutboxEntry;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QChangeOutboxEntry.changeOutboxEntry;
+
+/**
+ * change_outbox 를 주기적으로 읽어서 ChangeLog 파일에 붙이고 outbox 에서 지운다.
+ *
+ * 로그에 쓰고(fsync 정책대로 force) 나서 outbox 를 지우고 커밋하므로, 그 사이에 죽으면 같은 변경이 다시 붙을 수 있다. (at-least-once)
+ * 받는 쪽은 레코드의 outboxId 로 중복을 거른다. relay 는 애플리케이션 인스턴스 하나에서만 켠다.
+ *
+ * 로그에 붙일 수 없는 row (segment 보다 큰 레코드, JSON 이 아닌 payload)는 change_outbox_dead_letter 로 옮기고,
+ * 로그에는 data 없이 "deadLetter": true 인 레코드만 남긴다. 그런 row 하나 때문에 같은 batch 를 계속 다시 시도하며 멈추지 않는다.
+ */
+@Slf4j
+@Component
+public class ChangeLogRelay implements DisposableBean {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChangeLogProperties properties;
+    private final ChangeLog changeLog;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(VirtualThreads.namedThreadFactory("change-log-relay"));
+
+    public ChangeLogRelay(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper, ChangeLogProperties properties) throws IOException {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.changeLog = properties.isEnabled()
+                ? ChangeLog.open(Paths.get(properties.getDirectory()), (int) properties.getSegmentSize().toBytes(),
+                        properties.getMaxSegments(), properties.getFsync(), properties.getFsyncInterval())
+                : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (changeLog == null) {
+            return;
+        }
+        long interval = properties.getDrainInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                //outbox 는 그대로 남아 있으므로 다음 주기에 다시 옮긴다.
+                log.warn("change log drain failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return changeLog != null;
+    }
+
+    /**
+     * outbox 가 빌 때까지 batch-size 씩 옮기고 옮긴 row 수를 돌려준다.
+     */
+    public synchronized int drain() {
+        if (changeLog == null) {
+            return 0;
+        }
+        int total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> drainBatch());
+            total += moved;
+            if (moved < properties.getBatchSize()) {
+                changeLog.forceIfDue();
+                return total;
+            }
+        }
+    }
+
+    /**
+     * offset 부터 최대 limit 개의 변경. offset 이 이미 지워진 범위면 남아 있는 첫 레코드부터 준다.
+     */
+    public ChangeLogPageDto read(long offset, int limit) {
+        if (changeLog == null) {
+            throw new IllegalStateException("변경 로그가 꺼져 있습니다. (change-log.enabled=false)");
+        }
+        long startOffset = changeLog.startOffset();
+        long endOffset = changeLog.endOffset();
+        List<ChangeRecordDto> records = new ArrayList<>();
+        for (ChangeLogRecord record : changeLog.read(offset, limit)) {
+            records.add(new ChangeRecordDto(record.getOffset(), new String(record.getPayload(), StandardCharsets.UTF_8)));
+        }
+        long nextOffset = records.isEmpty() ? Math.min(Math.max(offset, startOffset), endOffset)
+                : records.get(records.size() - 1).getOffset() + 1;
+        return new ChangeLogPageDto(records, nextOffset, startOffset, Math.max(endOffset, nextOffset));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        if (changeLog != null) {
+            synchronized (this) {
+                changeLog.close();
+            }
+        }
+    }
+
+    private int drainBatch() {
+        List<ChangeOutboxEntry> entries = queryFactory
+                .selectFrom(changeOutboxEntry)
+                .orderBy(changeOutboxEntry.id.asc())
+                .limit(properties.getBatchSize())
+                .fetch();
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (ChangeOutboxEntry entry : entries) {
+            payloads.add(toRecordOrDeadLetter(entry));
+            ids.add(entry.getId());
+        }
+        changeLog.append(payloads);
+        //id 범위(loe)로 지우면 아직 커밋되지 않았던 작은 id 가 로그에 붙지 않고 지워질 수 있다.
+        queryFactory
+                .delete(changeOutboxEntry)
+                .where(changeOutboxEntry.id.in(ids))
+                .execute();
+        return entries.size();
+    }
+
+    private byte[] toRecordOrDeadLetter(ChangeOutboxEntry entry) {
+        String reason;
+        try {
+            byte[] record = toRecord(entry, objectMapper.readTree(entry.getPayload()));
+            if (record.length <= changeLog.maxRecordSize()) {
+                return record;
+            }
+            reason = "record larger than segment: " + record.length + " > " + changeLog.maxRecordSize() + " bytes";
+        } catch (JsonProcessingException e) {
+            reason = "payload is not JSON: " + e.getOriginalMessage();
+        }
+        log.warn("change outbox row moved to dead letter: id={}, reason={}", entry.getId(), reason);
+        em.persist(new ChangeOutboxDeadLetter(entry, reason.length() > 1000 ? reason.substring(0, 1000) : reason));
+        //받는 쪽이 빠진 변경이 있다는 것을 알 수 있도록 data 없이 남긴다.
+        ObjectNode marker = record(entry);
+        marker.put("deadLetter", true);
+        return write(marker);
+    }
+
+    private byte[] toRecord(ChangeOutboxEntry entry, JsonNode data) {
+        ObjectNode record = record(entry);
+        record.set("data", data);
+        return write(record);
+    }
+
+    private ObjectNode record(ChangeOutboxEntry entry) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("outboxId", entry.getId());
+        record.put("entity", entry.getEntityType());
+        record.put("type", entry.getChangeType());
+        record.put("entityId", entry.getEntityId());
+        record.put("createdAt", entry.getCreatedAt() == null ? null : entry.getCreatedAt().toString());
+        return record;
+    }
+
+    private byte[] write(ObjectNode record) {
+        try {
+            return objectMapper.writeValueAsBytes(record);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package study.querydsl.changelog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 변경 로그 segment 파일 하나. 파일 이름은 첫 레코드의 offset 이다. thread-safe 하지 않다. (ChangeLog 가 잠근다)
+ *
+ * 레코드 = [payload 길이 int][payload crc32 int][offset long][payload]
+ * 길이를 마지막에 쓰므로, 쓰는 도중에 죽으면 길이가 0 으로 남거나 crc 가 맞지 않아서 복구 시 거기서 끝난다.
+ */
+final class ChangeLogSegment {
+
+    static final int HEADER_BYTES = 4 + 4 + 8;
+    //레코드 몇 개마다 위치를 기억할지. offset 으로 읽을 때 최대 이만큼만 건너뛴다.
+    private static final int INDEX_INTERVAL = 128;
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int records;
+    private int[] index = new int[16];
+
+    private ChangeLogSegment(long baseOffset, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static Path fileName(Path directory, long baseOffset) {
+        return directory.resolve(String.format("%020d.log", baseOffset));
+    }
+
+    /**
+     * segment 파일을 열고 (없으면 만든다) 끝까지 읽어서 쓸 위치를 찾는다.
+     */
+    static ChangeLogSegment open(Path directory, long baseOffset, int capacity) throws IOException {
+        Path path = fileName(directory, baseOffset);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            //기존 파일이 더 크면 그 크기대로 연다. (segment-size 설정을 줄인 경우)
+            int size = (int) Math.max(capacity, channel.size());
+            ChangeLogSegment segment = new ChangeLogSegment(baseOffset, path, channel,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            segment.recover();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long nextOffset() {
+        return baseOffset + records;
+    }
+
+    int records() {
+        return records;
+    }
+
+    /**
+     * 남은 공간이 없으면 false. 이때는 다음 segment 에 써야 한다.
+     */
+    boolean append(byte[] payload) {
+        if (HEADER_BYTES + payload.length > buffer.capacity() - position) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putLong(position + 8, nextOffset());
+        buffer.position(position + HEADER_BYTES);
+        buffer.put(payload);
+        buffer.putInt(position, payload.length);
+        addIndex(position);
+        position += HEADER_BYTES + payload.length;
+        records++;
+        return true;
+    }
+
+    /**
+     * offset 부터 최대 max 개의 payload. offset 은 이 segment 범위 안이어야 한다.
+     */
+    void read(long offset, int max, List<ChangeLogRecord> result) {
+        int relative = (int) (offset - baseOffset);
+        int at = index[relative / INDEX_INTERVAL];
+        for (int i = relative - relative % INDEX_INTERVAL; i < relative; i++) {
+            at += HEADER_BYTES + buffer.getInt(at);
+        }
+        for (int i = relative; i < records && result.size() < max; i++) {
+            int length = buffer.getInt(at);
+            byte[] payload = new byte[length];
+            buffer.position(at + HEADER_BYTES);
+            buffer.get(payload);
+            result.add(new ChangeLogRecord(baseOffset + i, payload));
+            at += HEADER_BYTES + length;
+        }
+    }
+
+    void force() {
+        //JDK 11 에는 범위 force 가 없어서 mapping 전체를 msync 한다. 바뀐 page 만 내려간다.
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 파일을 지운다. mapping 은 GC 될 때 풀린다.
+     */
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void recover() {
+        int at = 0;
+        boolean torn = false;
+        while (at + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(at);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || at + HEADER_BYTES + length > buffer.capacity()
+                    || buffer.getLong(at + 8) != nextOffset()) {
+                torn = true;
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.position(at + HEADER_BYTES);
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(at + 4)) {
+                torn = true;
+                break;
+            }
+            addIndex(at);
+            at += HEADER_BYTES + length;
+            records++;
+        }
+        position = at;
+        if (torn) {
+            //쓰다 만 레코드가 남아 있으면 새 레코드 뒤에서 레코드처럼 읽힐 수 있으므로 지운다.
+            for (int i = at; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void addIndex(int at) {
+        if (records % INDEX_INTERVAL != 0) {
+            return;
+        }
+        int slot = records / INDEX_INTERVAL;
+        if (slot == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[slot] = at;
+    }
+}
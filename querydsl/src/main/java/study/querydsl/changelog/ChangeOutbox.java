@@ -0,0 +1,195 @@
+package study.querydsl.changelog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.ChangeOutboxEntry;
+import study.querydsl.event.BulkChangeEvent;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Member/Team 변경을 같은 트랜잭션 안에서 change_outbox 테이블에 남긴다. (EntityChangeEventPublisher 가 호출)
+ *
+ * - 엔티티 변경은 flush 중 post 이벤트에서, 벌크 DML 은 실행 직후에 트랜잭션별 batch 에 모은다.
+ * - 모은 row 는 Hibernate 가 flush 를 끝낸 뒤, 커밋 직전(before transaction completion)에 JDBC batch 로 한 번에 insert 한다.
+ *   outbox insert 가 실패하면 트랜잭션도 롤백되고, 롤백되면 outbox 에도 남지 않는다.
+ * - id 는 insert 전에 ChangeOutboxEntry 의 sequence generator 로 채번한다. (pooled, 50개마다 sequence 호출 한 번)
+ */
+@Slf4j
+@Component
+public class ChangeOutbox {
+
+    static final String BULK = "BULK";
+    private static final String INSERT_SQL =
+            "insert into change_outbox (id, entity_type, change_type, entity_id, payload, created_at) values (?, ?, ?, ?, ?, ?)";
+
+    private final ChangeLogProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ChangeOutbox(ChangeLogProperties properties, ObjectMapper objectMapper,
+                        ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 엔티티 insert/update/delete 직후(flush 중)에 호출한다.
+     */
+    public void record(SessionImplementor session, Object changeEvent) {
+        if (changeEvent instanceof MemberChangedEvent) {
+            MemberChangedEvent event = (MemberChangedEvent) changeEvent;
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("username", event.getUsername());
+            payload.put("age", event.getAge());
+            payload.put("teamId", event.getTeamId());
+            //changeTeam 등 무엇이 바뀌었는지 받는 쪽에서 비교할 수 있도록 이전 값도 남긴다.
+            if (event.getType() == ChangeType.UPDATE && event.isOldStateKnown()) {
+                payload.put("oldUsername", event.getOldUsername());
+                payload.put("oldAge", event.getOldAge());
+                payload.put("oldTeamId", event.getOldTeamId());
+            }
+            add(session, new OutboxRow("member", event.getType().name(), event.getMemberId(), json(payload)));
+        } else if (changeEvent instanceof TeamChangedEvent) {
+            TeamChangedEvent event = (TeamChangedEvent) changeEvent;
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("name", event.getName());
+            add(session, new OutboxRow("team", event.getType().name(), event.getTeamId(), json(payload)));
+        }
+    }
+
+    /**
+     * member/team 벌크 DML 을 실행한 직후에 호출한다. 바뀐 row 의 id 는 모르므로 바인딩 값이 들어간 SQL 과 row 수를 남긴다.
+     */
+    public void recordBulk(BulkChangeEvent event) {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory.getObject());
+        if (em == null) {
+            //JPA 벌크 연산은 트랜잭션 없이 실행되지 않는다. 여기로 오는 것은 트랜잭션 밖의 native 쿼리 정도다.
+            log.warn("bulk change outside transaction is not recorded in outbox: {}", event.getSql());
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sql", event.getSql());
+        payload.put("sqlWithValues", event.getSqlWithValues());
+        payload.put("rowCount", event.getRowCount());
+        add(em.unwrap(SessionImplementor.class), new OutboxRow(event.getTable(), BULK, null, json(payload)));
+    }
+
+    private void add(SessionImplementor session, OutboxRow row) {
+        boolean synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+        //REQUIRES_NEW 로 열린 안쪽 트랜잭션은 세션이 다르므로 세션을 key 로 쓴다.
+        OutboxBatch batch = synchronizationActive ? (OutboxBatch) TransactionSynchronizationManager.getResource(session) : null;
+        if (batch == null) {
+            batch = new OutboxBatch(session);
+            session.getActionQueue().registerProcess(batch);
+            if (synchronizationActive) {
+                TransactionSynchronizationManager.bindResource(session, batch);
+                TransactionSynchronizationManager.registerSynchronization(batch);
+            }
+        }
+        batch.rows.add(row);
+    }
+
+    private String json(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class OutboxRow {
+        private final String entityType;
+        private final String changeType;
+        private final Long entityId;
+        private final String payload;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        private OutboxRow(String entityType, String changeType, Long entityId, String payload) {
+            this.entityType = entityType;
+            this.changeType = changeType;
+            this.entityId = entityId;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 트랜잭션 하나에서 모은 outbox row.
+     * 롤백되면 Hibernate 세션에 process 가 남아 있을 수 있어서(open-in-view 로 세션이 이어지는 경우) closed 로 막는다.
+     */
+    private static class OutboxBatch implements BeforeTransactionCompletionProcess, TransactionSynchronization {
+        private final SessionImplementor session;
+        private final List<OutboxRow> rows = new ArrayList<>();
+        private boolean closed;
+
+        private OutboxBatch(SessionImplementor session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (closed || rows.isEmpty()) {
+                return;
+            }
+            IdentifierGenerator idGenerator = session.getFactory().getIdentifierGenerator(ChangeOutboxEntry.class.getName());
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ids.add((Long) idGenerator.generate(session, null));
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        OutboxRow row = rows.get(i);
+                        statement.setLong(1, ids.get(i));
+                        statement.setString(2, row.entityType);
+                        statement.setString(3, row.changeType);
+                        if (row.entityId == null) {
+                            statement.setNull(4, Types.BIGINT);
+                        } else {
+                            statement.setLong(4, row.entityId);
+                        }
+                        statement.setString(5, row.payload);
+                        statement.setTimestamp(6, Timestamp.valueOf(row.createdAt));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+            rows.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            closed = true;
+            rows.clear();
+            TransactionSynchronizationManager.unbindResourceIfPossible(session);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.changelog;
+
+/**
+ * 변경 로그를 디스크에 강제로 내리는(fsync) 시점.
+ * outbox row 는 로그에 쓴 뒤 지우므로, ALWAYS 가 아니면 장애 시 마지막 구간의 변경을 잃을 수 있다.
+ */
+public enum FsyncPolicy {
+    //append 한 batch 마다 force. outbox 를 지우기 전에 디스크에 있다.
+    ALWAYS,
+    //마지막 force 이후 fsync-interval 이 지났을 때만 force
+    INTERVAL,
+    //OS 가 page cache 를 내릴 때까지 기다린다. 종료 시에는 force
+    NEVER
+}
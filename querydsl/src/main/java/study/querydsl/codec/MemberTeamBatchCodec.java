@@ -0,0 +1,187 @@
+package study.querydsl.codec;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List&lt;MemberTeamDto&gt; 를 열(column) 단위로 쓰는 바이너리 포맷. (application/vnd.querydsl.member-batch)
+ *
+ * <pre>
+ * magic      "MTB" + version(1)
+ * rows       varint
+ * teams      varint 개수, (zigzag varint teamId, string teamName) 목록. 행에는 1 부터 매긴 사전 번호만 쓴다.
+ * memberId   rows 개. 앞 행과의 차이 (zigzag varint)
+ * username   rows 개. string
+ * age        rows 개. zigzag varint
+ * team       rows 개. 사전 번호 varint, 0 은 team 없음
+ * string  =  varint (UTF-8 길이 + 1) + UTF-8, 0 은 null
+ * </pre>
+ * JSON 에서 행마다 반복되는 필드 이름과 team 이름이 빠지고, id 순으로 조회한 memberId 는 대부분 1 바이트가 된다.
+ * memberId 는 항상 있다. (엔티티 조회 결과)
+ */
+public final class MemberTeamBatchCodec {
+
+    private static final byte[] MAGIC = {'M', 'T', 'B', 1};
+    private static final int BUFFER_SIZE = 8192;
+
+    private MemberTeamBatchCodec() {
+    }
+
+    /**
+     * target 은 닫지 않는다.
+     */
+    public static void encode(List<MemberTeamDto> rows, OutputStream target) throws IOException {
+        Map<Long, String> teams = new LinkedHashMap<>();
+        for (MemberTeamDto row : rows) {
+            if (row.getTeamId() != null) {
+                teams.putIfAbsent(row.getTeamId(), row.getTeamName());
+            }
+        }
+
+        BufferedOutputStream out = new BufferedOutputStream(target, BUFFER_SIZE);
+        out.write(MAGIC);
+        writeVarLong(out, rows.size());
+        writeVarLong(out, teams.size());
+        Map<Long, Integer> teamCodes = new HashMap<>();
+        for (Map.Entry<Long, String> team : teams.entrySet()) {
+            teamCodes.put(team.getKey(), teamCodes.size() + 1);
+            writeVarLong(out, zigzag(team.getKey()));
+            writeString(out, team.getValue());
+        }
+
+        long previousId = 0;
+        for (MemberTeamDto row : rows) {
+            if (row.getMemberId() == null) {
+                throw new IllegalArgumentException("memberId 가 없는 행은 member-batch 로 쓸 수 없습니다.");
+            }
+            writeVarLong(out, zigzag(row.getMemberId() - previousId));
+            previousId = row.getMemberId();
+        }
+        for (MemberTeamDto row : rows) {
+            writeString(out, row.getUsername());
+        }
+        for (MemberTeamDto row : rows) {
+            writeVarLong(out, zigzag(row.getAge()));
+        }
+        for (MemberTeamDto row : rows) {
+            writeVarLong(out, row.getTeamId() == null ? 0 : teamCodes.get(row.getTeamId()));
+        }
+        out.flush();
+    }
+
+    public static List<MemberTeamDto> decode(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source, BUFFER_SIZE));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("member-batch 형식이 아닙니다.");
+        }
+        int rows = toInt(readVarLong(in));
+        int teamCount = toInt(readVarLong(in));
+        long[] teamIds = new long[teamCount];
+        String[] teamNames = new String[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teamIds[i] = unzigzag(readVarLong(in));
+            teamNames[i] = readString(in);
+        }
+
+        long[] memberIds = new long[rows];
+        long previousId = 0;
+        for (int i = 0; i < rows; i++) {
+            previousId += unzigzag(readVarLong(in));
+            memberIds[i] = previousId;
+        }
+        String[] usernames = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            usernames[i] = readString(in);
+        }
+        int[] ages = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ages[i] = (int) unzigzag(readVarLong(in));
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int code = toInt(readVarLong(in));
+            if (code > teamCount) {
+                throw new IllegalArgumentException("team 사전에 없는 번호입니다: " + code);
+            }
+            result.add(code == 0
+                    ? new MemberTeamDto(memberIds[i], usernames[i], ages[i], null, null)
+                    : new MemberTeamDto(memberIds[i], usernames[i], ages[i], teamIds[code - 1], teamNames[code - 1]));
+        }
+        return result;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint 가 너무 깁니다.");
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = toInt(readVarLong(in));
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int toInt(long value) {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("잘못된 길이입니다: " + value);
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.codec;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.lang.Nullable;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Accept: application/vnd.querydsl.member-batch 로 List&lt;MemberTeamDto&gt; 를 MemberTeamBatchCodec 포맷으로 주고받는다.
+ * 원소 타입을 봐야 하므로 generic 타입이 있는 경우(컨트롤러 반환 타입 등)에만 쓴다.
+ */
+public class MemberTeamBatchHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.querydsl.member-batch";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    public MemberTeamBatchHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return canRead(mediaType) && isMemberTeamDtoList(type);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return canWrite(mediaType) && type != null && isMemberTeamDtoList(type);
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        return MemberTeamBatchCodec.decode(inputMessage.getBody());
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return MemberTeamBatchCodec.decode(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> rows, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        MemberTeamBatchCodec.encode(rows, outputMessage.getBody());
+    }
+
+    private static boolean isMemberTeamDtoList(Type type) {
+        return MemberTeamDto.class.equals(ResolvableType.forType(type).as(List.class).resolveGeneric(0));
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamDto 전용 serializer. 필드 이름은 미리 인코딩해 두고 getter 를 직접 호출한다.
+ * 출력은 기본 BeanSerializer 와 같다. (필드 선언 순서, null 포함)
+ * JSON, Smile, CBOR 컨버터가 모두 스프링 부트 ObjectMapper 설정을 쓰므로 세 포맷에 같이 적용된다.
+ */
+@JsonComponent
+public class MemberTeamDtoSerializer extends StdSerializer<MemberTeamDto> {
+
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+
+    public MemberTeamDtoSerializer() {
+        super(MemberTeamDto.class);
+    }
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(dto);
+        gen.writeFieldName(MEMBER_ID);
+        writeLong(gen, dto.getMemberId());
+        gen.writeFieldName(USERNAME);
+        writeString(gen, dto.getUsername());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(dto.getAge());
+        gen.writeFieldName(TEAM_ID);
+        writeLong(gen, dto.getTeamId());
+        gen.writeFieldName(TEAM_NAME);
+        writeString(gen, dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, String value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+}
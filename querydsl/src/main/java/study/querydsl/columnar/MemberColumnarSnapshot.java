@@ -0,0 +1,332 @@
+package study.querydsl.columnar;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.config.WriterRouting;
+import study.querydsl.dto.AgeStatsDto;
+import study.querydsl.dto.AgeStatsSource;
+import study.querydsl.dto.ColumnarSnapshotStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.BulkChangeEvent;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 분석용 Member 컬럼 스냅샷 (member.columnar-snapshot.enabled=true 일 때만 만든다).
+ *
+ * MemberSearchCondition 조건의 나이 count / sum / avg / min / max 를 엔티티나 Tuple 없이 primitive 배열 루프로 계산한다.
+ * row 가 parallel-threshold 이상이면 fork-join 으로 구간을 나눠서 집계한다.
+ *
+ * - 애플리케이션 시작 시 DB에서 만들고, 커밋된 Member/Team 변경 이벤트로 증분 갱신한다.
+ * - 벌크 DML 이후에는 백그라운드에서 다시 만들고, 그동안(stale)은 null 을 돌려줘서 호출한 쪽이 DB로 조회하게 한다.
+ * 집계는 읽기 잠금, 갱신은 쓰기 잠금을 잡으므로 집계끼리는 동시에 실행된다.
+ */
+@Slf4j
+@Component
+public class MemberColumnarSnapshot implements DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final int parallelThreshold;
+    private final int rebuildChunkSize;
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(VirtualThreads.namedThreadFactory("columnar-snapshot"));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final Object rebuildLock = new Object();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MemberColumns columns = new MemberColumns();
+    private boolean stale = true;
+    //다시 만드는 동안 들어온 변경. 새 스냅샷에 다시 반영한다.
+    private List<Object> pending;
+    private boolean bulkChangedWhileRebuilding;
+    private long rebuilds;
+
+    public MemberColumnarSnapshot(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                  @Value("${member.columnar-snapshot.enabled:false}") boolean enabled,
+                                  @Value("${member.columnar-snapshot.parallel-threshold:200000}") int parallelThreshold,
+                                  @Value("${member.columnar-snapshot.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.parallelThreshold = parallelThreshold;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * 조건에 맞는 회원 전체의 나이 집계. stale 이면 null
+     */
+    public AgeStatsDto ageStats(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            if (stale) {
+                return null;
+            }
+            MemberColumns.AgeAccumulator result = columns.aggregate(filter(condition), false, parallelThreshold);
+            return toDto(null, result.counts[0], result.sums[0], result.mins[0], result.maxs[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 팀 이름별 나이 집계 (member join team group by team.name, 이름순). stale 이면 null
+     */
+    public List<AgeStatsDto> ageStatsByTeam(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            if (stale) {
+                return null;
+            }
+            MemberColumns.AgeAccumulator result = columns.aggregate(filter(condition), true, parallelThreshold);
+            //같은 이름의 팀은 하나로 합친다.
+            Map<String, long[]> byName = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+            for (int code = 0; code < result.counts.length; code++) {
+                if (result.counts[code] == 0) {
+                    continue;
+                }
+                long[] stats = byName.computeIfAbsent(columns.teamName(code),
+                        name -> new long[]{0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE});
+                stats[0] += result.counts[code];
+                stats[1] += result.sums[code];
+                stats[2] = Math.min(stats[2], result.mins[code]);
+                stats[3] = Math.max(stats[3], result.maxs[code]);
+            }
+            List<AgeStatsDto> dtos = new ArrayList<>(byName.size());
+            byName.forEach((name, stats) -> dtos.add(toDto(name, stats[0], stats[1], (int) stats[2], (int) stats[3])));
+            return dtos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ColumnarSnapshotStatsDto stats() {
+        lock.readLock().lock();
+        try {
+            return new ColumnarSnapshotStatsDto(enabled, stale, columns.rows(), columns.liveRows(),
+                    columns.teams(), columns.dictionarySize(), rebuilds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (!enabled || !("member".equals(event.getTable()) || "team".equals(event.getTable()))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            stale = true;
+            if (pending != null) {
+                bulkChangedWhileRebuilding = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("columnar snapshot rebuild failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //종료 중
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * DB에서 스냅샷을 다시 만든다.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                pending = new ArrayList<>();
+                bulkChangedWhileRebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long start = System.nanoTime();
+            MemberColumns rebuilt;
+            try {
+                rebuilt = WriterRouting.call(() -> readOnlyTx.execute(status -> load()));
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Object event : pending) {
+                    apply(rebuilt, event);
+                }
+                pending = null;
+                columns = rebuilt;
+                stale = bulkChangedWhileRebuilding;
+                rebuilds++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("columnar snapshot rebuilt. members={}, teams={}, elapsed={}ms",
+                    rebuilt.liveRows(), rebuilt.teams(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void onChange(Object event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                apply(columns, event);
+            }
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private MemberColumns.ColumnFilter filter(MemberSearchCondition condition) {
+        return columns.filter(
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getUsernameContains()) ? condition.getUsernameContains() : null,
+                hasText(condition.getUsernameStartsWith()) ? condition.getUsernameStartsWith() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(), condition.getAgeLoe());
+    }
+
+    private MemberColumns load() {
+        MemberColumns result = new MemberColumns();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            result.putTeam(row.get(team.id), row.get(team.name));
+        }
+        Long lastId = null;
+        while (true) {
+            //member.team.id 는 join 없이 FK 컬럼을 읽는다.
+            List<Tuple> rows = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(lastId == null ? null : member.id.gt(lastId))
+                    .orderBy(member.id.asc())
+                    .limit(rebuildChunkSize)
+                    .fetch();
+            for (Tuple row : rows) {
+                result.putMember(row.get(member.id), row.get(member.username), row.get(member.age), row.get(member.team.id));
+            }
+            if (rows.size() < rebuildChunkSize) {
+                return result;
+            }
+            lastId = rows.get(rows.size() - 1).get(member.id);
+        }
+    }
+
+    private static void apply(MemberColumns target, Object event) {
+        if (event instanceof MemberChangedEvent) {
+            MemberChangedEvent changed = (MemberChangedEvent) event;
+            if (changed.getMemberId() == null) {
+                return;
+            }
+            if (changed.getType() == ChangeType.DELETE) {
+                target.removeMember(changed.getMemberId());
+            } else {
+                target.putMember(changed.getMemberId(), changed.getUsername(), changed.getAge(), changed.getTeamId());
+            }
+        } else if (event instanceof TeamChangedEvent) {
+            TeamChangedEvent changed = (TeamChangedEvent) event;
+            if (changed.getTeamId() != null) {
+                //삭제된 팀은 이름 조건/그룹에 걸리지 않게 이름을 지운다.
+                target.putTeam(changed.getTeamId(), changed.getType() == ChangeType.DELETE ? null : changed.getName());
+            }
+        }
+    }
+
+    private static AgeStatsDto toDto(String teamName, long count, long sum, int min, int max) {
+        return new AgeStatsDto(teamName, count, sum,
+                count == 0 ? null : (double) sum / count,
+                count == 0 ? null : min,
+                count == 0 ? null : max,
+                AgeStatsSource.SNAPSHOT);
+    }
+}
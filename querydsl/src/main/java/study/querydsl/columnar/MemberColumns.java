@@ -0,0 +1,335 @@
+package study.querydsl.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Member 를 컬럼 단위 primitive 배열로 들고 있는 스냅샷. thread-safe 하지 않다. (MemberColumnarSnapshot 이 잠근다)
+ *
+ * - row 마다 id(long), age(int), 팀 코드(int), 이름 코드(int)를 둔다.
+ * - 이름과 팀은 사전(dictionary)으로 코드화해서 조건 평가를 배열 조회 한 번으로 끝낸다.
+ * - 삭제는 deleted 비트만 세우고, 삭제된 row 가 1/4 을 넘으면 압축한다.
+ */
+final class MemberColumns {
+
+    static final int NO_TEAM = -1;
+    //병렬 집계 시 task 하나가 맡는 row 수
+    private static final int SEGMENT = 1 << 16;
+
+    private long[] ids = new long[1024];
+    private int[] ages = new int[1024];
+    private int[] teamCodes = new int[1024];
+    private int[] nameCodes = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int rows;
+    private int deletedRows;
+    private final Map<Long, Integer> rowOf = new HashMap<>();
+
+    //이름 사전
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameCodeOf = new HashMap<>();
+
+    //팀 사전. 코드 = 팀 id 가 처음 나온 순서
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private final Map<Long, Integer> teamCodeOf = new HashMap<>();
+
+    void putMember(long id, String username, int age, Long teamId) {
+        Integer row = rowOf.get(id);
+        if (row == null) {
+            row = rows;
+            grow(rows + 1);
+            rows++;
+            ids[row] = id;
+            rowOf.put(id, row);
+        }
+        ages[row] = age;
+        teamCodes[row] = teamId == null ? NO_TEAM : teamCode(teamId);
+        nameCodes[row] = nameCode(username);
+    }
+
+    void removeMember(long id) {
+        Integer row = rowOf.remove(id);
+        if (row == null) {
+            return;
+        }
+        deleted.set(row);
+        deletedRows++;
+        if (deletedRows > SEGMENT && deletedRows > rows / 4) {
+            compact();
+        }
+    }
+
+    void putTeam(long id, String name) {
+        teamNames.set(teamCode(id), name);
+    }
+
+    int liveRows() {
+        return rows - deletedRows;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int teams() {
+        return teamIds.size();
+    }
+
+    int dictionarySize() {
+        return names.size();
+    }
+
+    /**
+     * 조건에 맞는 회원의 나이 집계. byTeam 이면 팀 코드별로, 아니면 전체를 하나로 모은다.
+     * byTeam 은 member join team 과 같이 팀이 없는 회원을 뺀다.
+     */
+    AgeAccumulator aggregate(ColumnFilter filter, boolean byTeam, int parallelThreshold) {
+        int groups = byTeam ? teamIds.size() : 1;
+        if (filter.isEmpty()) {
+            return new AgeAccumulator(groups);
+        }
+        if (rows < parallelThreshold) {
+            return scan(filter, byTeam, groups, 0, rows);
+        }
+        return ForkJoinPool.commonPool().invoke(new ScanTask(filter, byTeam, groups, 0, rows));
+    }
+
+    ColumnFilter filter(String username, String usernameContains, String usernameStartsWith,
+                        String teamName, Integer ageGoe, Integer ageLoe) {
+        boolean[] nameMatches = null;
+        if (username != null) {
+            nameMatches = new boolean[names.size()];
+            Integer code = nameCodeOf.get(username);
+            if (code != null) {
+                nameMatches[code] = true;
+            }
+        }
+        nameMatches = matchNames(nameMatches, usernameContains, false);
+        nameMatches = matchNames(nameMatches, usernameStartsWith, true);
+
+        boolean[] teamMatches = null;
+        if (teamName != null) {
+            teamMatches = new boolean[teamIds.size()];
+            for (int code = 0; code < teamMatches.length; code++) {
+                teamMatches[code] = teamName.equals(teamNames.get(code));
+            }
+        }
+        return new ColumnFilter(nameMatches, teamMatches,
+                ageGoe != null ? ageGoe : Integer.MIN_VALUE,
+                ageLoe != null ? ageLoe : Integer.MAX_VALUE);
+    }
+
+    String teamName(int teamCode) {
+        return teamNames.get(teamCode);
+    }
+
+    //사전을 한 번만 훑어서 이름 코드별 일치 여부를 만든다. row 마다 문자열을 비교하지 않는다.
+    private boolean[] matchNames(boolean[] current, String text, boolean prefix) {
+        if (text == null) {
+            return current;
+        }
+        String needle = text.toLowerCase(Locale.ROOT);
+        boolean[] result = new boolean[names.size()];
+        for (int code = 0; code < result.length; code++) {
+            String name = names.get(code);
+            if (name == null || (current != null && !current[code])) {
+                continue;
+            }
+            String lower = name.toLowerCase(Locale.ROOT);
+            result[code] = prefix ? lower.startsWith(needle) : lower.contains(needle);
+        }
+        return result;
+    }
+
+    private AgeAccumulator scan(ColumnFilter filter, boolean byTeam, int groups, int from, int to) {
+        AgeAccumulator accumulator = new AgeAccumulator(groups);
+        int ageGoe = filter.ageGoe;
+        int ageLoe = filter.ageLoe;
+        boolean[] teamMatches = filter.teamMatches;
+        boolean[] nameMatches = filter.nameMatches;
+        boolean requireTeam = byTeam || teamMatches != null;
+        for (int row = from; row < to; row++) {
+            int age = ages[row];
+            if (age < ageGoe || age > ageLoe) {
+                continue;
+            }
+            int teamCode = teamCodes[row];
+            if (requireTeam && (teamCode == NO_TEAM || (teamMatches != null && !teamMatches[teamCode]))) {
+                continue;
+            }
+            if (nameMatches != null && !nameMatches[nameCodes[row]]) {
+                continue;
+            }
+            //삭제된 row 는 드물기 때문에 마지막에 확인한다.
+            if (deletedRows > 0 && deleted.get(row)) {
+                continue;
+            }
+            accumulator.add(byTeam ? teamCode : 0, age);
+        }
+        return accumulator;
+    }
+
+    private int teamCode(long teamId) {
+        Integer code = teamCodeOf.get(teamId);
+        if (code == null) {
+            code = teamIds.size();
+            teamIds.add(teamId);
+            //팀 이벤트보다 회원 이벤트가 먼저 온 경우. 이름은 putTeam 에서 채운다.
+            teamNames.add(null);
+            teamCodeOf.put(teamId, code);
+        }
+        return code;
+    }
+
+    private int nameCode(String username) {
+        if (username == null) {
+            username = "";
+        }
+        Integer code = nameCodeOf.get(username);
+        if (code == null) {
+            code = names.size();
+            names.add(username);
+            nameCodeOf.put(username, code);
+        }
+        return code;
+    }
+
+    private void grow(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int size = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, size);
+        ages = Arrays.copyOf(ages, size);
+        teamCodes = Arrays.copyOf(teamCodes, size);
+        nameCodes = Arrays.copyOf(nameCodes, size);
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (deleted.get(row)) {
+                continue;
+            }
+            ids[target] = ids[row];
+            ages[target] = ages[row];
+            teamCodes[target] = teamCodes[row];
+            nameCodes[target] = nameCodes[row];
+            rowOf.put(ids[target], target);
+            target++;
+        }
+        rows = target;
+        deletedRows = 0;
+        deleted.clear();
+    }
+
+    /**
+     * 회원 검색 조건을 코드 배열로 바꾼 것. null 배열은 조건 없음.
+     */
+    static final class ColumnFilter {
+        private final boolean[] nameMatches;
+        private final boolean[] teamMatches;
+        private final int ageGoe;
+        private final int ageLoe;
+
+        private ColumnFilter(boolean[] nameMatches, boolean[] teamMatches, int ageGoe, int ageLoe) {
+            this.nameMatches = nameMatches;
+            this.teamMatches = teamMatches;
+            this.ageGoe = ageGoe;
+            this.ageLoe = ageLoe;
+        }
+
+        //결과가 없는 것이 확실한 조건
+        private boolean isEmpty() {
+            return ageGoe > ageLoe || noneTrue(nameMatches) || noneTrue(teamMatches);
+        }
+
+        private static boolean noneTrue(boolean[] matches) {
+            if (matches == null) {
+                return false;
+            }
+            for (boolean match : matches) {
+                if (match) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 그룹(팀 코드)별 count / sum / min / max
+     */
+    static final class AgeAccumulator {
+        final long[] counts;
+        final long[] sums;
+        final int[] mins;
+        final int[] maxs;
+
+        private AgeAccumulator(int groups) {
+            counts = new long[groups];
+            sums = new long[groups];
+            mins = new int[groups];
+            maxs = new int[groups];
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxs, Integer.MIN_VALUE);
+        }
+
+        private void add(int group, int age) {
+            counts[group]++;
+            sums[group] += age;
+            if (age < mins[group]) {
+                mins[group] = age;
+            }
+            if (age > maxs[group]) {
+                maxs[group] = age;
+            }
+        }
+
+        private AgeAccumulator merge(AgeAccumulator other) {
+            for (int group = 0; group < counts.length; group++) {
+                counts[group] += other.counts[group];
+                sums[group] += other.sums[group];
+                mins[group] = Math.min(mins[group], other.mins[group]);
+                maxs[group] = Math.max(maxs[group], other.maxs[group]);
+            }
+            return this;
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<AgeAccumulator> {
+        private final ColumnFilter filter;
+        private final boolean byTeam;
+        private final int groups;
+        private final int from;
+        private final int to;
+
+        private ScanTask(ColumnFilter filter, boolean byTeam, int groups, int from, int to) {
+            this.filter = filter;
+            this.byTeam = byTeam;
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AgeAccumulator compute() {
+            if (to - from <= SEGMENT) {
+                return scan(filter, byTeam, groups, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask right = new ScanTask(filter, byTeam, groups, middle, to);
+            right.fork();
+            AgeAccumulator left = new ScanTask(filter, byTeam, groups, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
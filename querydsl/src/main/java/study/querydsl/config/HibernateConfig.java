@@ -0,0 +1,16 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.sql.SqlStatementInspector;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementInspector statementInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.codec.MemberTeamBatchHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * Accept 헤더에 따라 JSON 대신 바이너리 포맷으로 응답한다.
+ * - application/x-jackson-smile, application/cbor: 모든 @ResponseBody
+ * - application/vnd.querydsl.member-batch: List&lt;MemberTeamDto&gt; (/v1/members 등)
+ * Accept 가 없거나 *&#47;* 이면 컨버터 순서대로 JSON 이 먼저 골라진다.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    //같은 타입의 기본 컨버터 자리를 대신한다. (JSON 뒤) 스프링 부트 ObjectMapper 설정과 @JsonComponent 를 그대로 쓴다.
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    //빈으로 등록하면 기본 컨버터 앞에 붙어서 */* 요청에도 골라지므로 맨 뒤에 붙인다.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MemberTeamBatchHttpMessageConverter());
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.config;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * readOnly 트랜잭션으로 얻는 이득을 수치로 보기 위한 카운터.
+ *
+ * readOnly 세션에서 로딩된 엔티티는 스냅샷을 만들지 않고 flush 시 dirty checking 대상에서도 빠진다.
+ * 실제로 flush 가 일어났는지는 알 수 없으므로 절약된 dirty checking 수가 아니라 readOnly/readWrite 로딩 수만 센다.
+ */
+@Component
+public class ReadOnlyMetrics implements PostLoadEventListener, SmartInitializingSingleton {
+
+    private final LongAdder readOnlyLoads = new LongAdder();
+    private final LongAdder readWriteLoads = new LongAdder();
+    private final LongAdder readerConnections = new LongAdder();
+    private final LongAdder writerConnections = new LongAdder();
+
+    //routing DataSource가 이 빈을 쓰기 때문에 EntityManagerFactory는 생성이 끝난 뒤에 조회한다.
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReadOnlyMetrics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        entityManagerFactory.getObject().unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        if (event.getSession().isDefaultReadOnly()) {
+            readOnlyLoads.increment();
+        } else {
+            readWriteLoads.increment();
+        }
+    }
+
+    void connectionRouted(boolean readOnly) {
+        if (readOnly) {
+            readerConnections.increment();
+        } else {
+            writerConnections.increment();
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("readerConnections", readerConnections.sum());
+        result.put("writerConnections", writerConnections.sum());
+        result.put("readOnlyEntityLoads", readOnlyLoads.sum());
+        result.put("readWriteEntityLoads", readWriteLoads.sum());
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica로, 나머지는 writer로 보낸다.
+ * WriterRouting.call 안에서는 readOnly 여도 writer로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 바인딩되지 않으므로
+ * 반드시 LazyConnectionDataSourceProxy로 감싸서 실제 커넥션 획득을 미뤄야 한다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String WRITER = "writer";
+    static final String READER = "reader";
+
+    private final ReadOnlyMetrics readOnlyMetrics;
+
+    public ReadWriteRoutingDataSource(ReadOnlyMetrics readOnlyMetrics) {
+        this.readOnlyMetrics = readOnlyMetrics;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !WriterRouting.isPinned();
+        readOnlyMetrics.connectionRouted(readOnly);
+        return readOnly ? READER : WRITER;
+    }
+}
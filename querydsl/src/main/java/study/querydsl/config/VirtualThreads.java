@@ -0,0 +1,43 @@
+package study.querydsl.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JDK 21 이상이면 가상 스레드 executor를, 아니면 고정 크기 플랫폼 스레드 풀을 만든다.
+ * 소스 호환 버전이 11이라 가상 스레드 API는 리플렉션으로 호출한다.
+ * 가상 스레드 executor는 크기 제한이 없으므로 동시 실행 수 제한은 호출하는 쪽에서 Semaphore 등으로 건다.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static ExecutorService newExecutor(String namePrefix, int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(platformThreads, namedThreadFactory(namePrefix));
+        }
+    }
+
+    public static ThreadFactory namedThreadFactory(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
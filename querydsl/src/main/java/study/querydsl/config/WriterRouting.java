@@ -0,0 +1,36 @@
+package study.querydsl.config;
+
+import java.util.function.Supplier;
+
+/**
+ * readOnly 트랜잭션이라도 replica 대신 writer 에서 읽게 한다.
+ *
+ * 변경 직후에 다시 만드는 캐시/색인/스냅샷은 replica 에서 읽으면 아직 복제되지 않은 이전 데이터를 최신으로 기억한다.
+ * 커넥션은 LazyConnectionDataSourceProxy 가 첫 사용 시점에 고르므로, 이미 커넥션을 쓴 트랜잭션 안에서 부르면 효과가 없다.
+ * (호출하는 쪽은 REQUIRES_NEW 트랜잭션이나 트랜잭션 밖에서 부른다)
+ */
+public final class WriterRouting {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private WriterRouting() {
+    }
+
+    public static <T> T call(Supplier<T> work) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            } else {
+                PINNED.set(previous);
+            }
+        }
+    }
+
+    static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+}
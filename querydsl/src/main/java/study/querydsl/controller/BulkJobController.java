@@ -0,0 +1,44 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.bulk.BulkJobOptions;
+import study.querydsl.bulk.BulkJobProgress;
+import study.querydsl.bulk.ChunkedBulkExecutor;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+@RestController
+@RequiredArgsConstructor
+public class BulkJobController {
+    private final ChunkedBulkExecutor chunkedBulkExecutor;
+
+    @GetMapping("/v1/bulk-jobs")
+    public List<BulkJobProgress> jobs() {
+        return chunkedBulkExecutor.progress();
+    }
+
+    //QuerydslBasicTest.bulkAdd 와 같은 연산을 chunk 단위로 실행
+    //백그라운드에서 실행하고 바로 202 를 돌려준다. 진행 상황은 GET /v1/bulk-jobs 에서 jobName 으로 찾는다.
+    @PostMapping("/v1/bulk-jobs/member-age")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BulkJobProgress addMemberAge(@RequestParam int ageLt,
+                                        @RequestParam(defaultValue = "1") int add,
+                                        @RequestParam(required = false) Integer chunkSize,
+                                        @RequestParam(required = false) Integer maxRowsPerSecond) {
+        BulkJobOptions options = new BulkJobOptions();
+        options.setChunkSize(chunkSize);
+        options.setMaxRowsPerSecond(maxRowsPerSecond);
+        return chunkedBulkExecutor.submitUpdate("member-age-lt-" + ageLt + "-add-" + add,
+                member, member.id, member.age.lt(ageLt),
+                update -> update.set(member.age, member.age.add(add)),
+                options);
+    }
+}
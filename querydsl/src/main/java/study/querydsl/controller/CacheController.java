@@ -0,0 +1,18 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.SecondLevelCacheStatistics;
+import study.querydsl.dto.SecondLevelCacheStatsDto;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    @GetMapping("/v1/cache/second-level")
+    public SecondLevelCacheStatsDto secondLevelCache() {
+        return secondLevelCacheStatistics.stats();
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.changelog.ChangeLogRelay;
+import study.querydsl.dto.ChangeLogPageDto;
+
+@RestController
+@RequiredArgsConstructor
+public class ChangeLogController {
+    private final ChangeLogRelay changeLogRelay;
+
+    //Member/Team 변경을 offset 순서로 읽는다. 응답의 nextOffset 으로 다시 요청하면 이어서 받는다.
+    @GetMapping("/v1/changes")
+    public ChangeLogPageDto changes(@RequestParam(defaultValue = "0") long offset,
+                                    @RequestParam(defaultValue = "100") int limit) {
+        return changeLogRelay.read(offset, Math.min(limit, 1000));
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.ReadOnlyMetrics;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class DataSourceController {
+    private final ReadOnlyMetrics readOnlyMetrics;
+
+    @GetMapping("/v1/datasource/read-only")
+    public Map<String, Long> readOnlyMetrics() {
+        return readOnlyMetrics.snapshot();
+    }
+}
@@ -1,46 +1,31 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
-
-import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import study.querydsl.seed.SeedProperties;
+import study.querydsl.seed.SeedRunner;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final  InitMemberService initMemberService;
+    private final SeedRunner seedRunner;
+    private final SeedProperties seedProperties;
 
-    @PostConstruct
+    //데이터 규모와 분포는 application.yml의 seed.* 로 조절한다.
+    //시작 시간에 적재 시간이 더해지지 않도록 준비가 끝난 뒤 적재한다. 진행 상황은 /v1/startup/seed
+    @EventListener(ApplicationReadyEvent.class)
     public void init(){
-        initMemberService.init();
-    }
-
-    @Component
-    static class InitMemberService{
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init(){
-            Team teamA = new Team("temaA");
-            Team teamB = new Team("temaB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i=0; i<100; i++){
-                Team selectedTeam = i%2==0? teamA:teamB;
-                em.persist(new Member("member"+i,i,selectedTeam));
-            }
+        if (seedProperties.isAsync()) {
+            seedRunner.start();
+        } else {
+            //readiness(ACCEPTING_TRAFFIC)는 ApplicationReadyEvent 리스너가 모두 끝난 뒤 발행되므로 적재가 끝나야 준비 상태가 된다.
+            seedRunner.run(seedProperties);
         }
     }
 
-
 }
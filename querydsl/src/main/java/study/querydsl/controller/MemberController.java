@@ -1,21 +1,156 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.async.AsyncQueryExecutor;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.columnar.MemberColumnarSnapshot;
+import study.querydsl.dto.AgeStatsDto;
+import study.querydsl.dto.BulkheadStatsDto;
+import study.querydsl.dto.CacheStatsDto;
+import study.querydsl.dto.ColumnarSnapshotStatsDto;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberCursorRequest;
+import study.querydsl.dto.MemberPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QueryTemplateStatsDto;
+import study.querydsl.dto.ShardMemberTeamDto;
+import study.querydsl.dto.UsernameIndexStatsDto;
+import study.querydsl.loader.TeamBatchLoader;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+import study.querydsl.search.UsernameIndex;
+import study.querydsl.service.MemberAnalyticsService;
+import study.querydsl.service.MemberSearchService;
+import study.querydsl.shard.ShardedMemberSearch;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private  final MemberJpaRepository memberJpaRepository;
+    private final MemberSearchQueryTemplates memberSearchQueryTemplates;
+    private final MemberSearchCache memberSearchCache;
+    private final ShardedMemberSearch shardedMemberSearch;
+    private final ObjectMapper objectMapper;
+    private final TeamBatchLoader teamBatchLoader;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final MemberSearchService memberSearchService;
+    private final UsernameIndex usernameIndex;
+    private final MemberAnalyticsService memberAnalyticsService;
+    private final MemberColumnarSnapshot memberColumnarSnapshot;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+        return memberSearchCache.get(condition, memberSearchQueryTemplates::search);
+    }
+
+    //서블릿 스레드를 바로 반납하고 async-query executor 에서 조회한다. 동시 실행 수 초과 시 503, 타임아웃 시 504
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberAsync(MemberSearchCondition condition) {
+        return asyncQueryExecutor.submit("v1-members",
+                () -> memberSearchCache.get(condition, memberSearchQueryTemplates::search));
+    }
+
+    @GetMapping("/v1/members/async/bulkheads")
+    public List<BulkheadStatsDto> bulkheadStats() {
+        return asyncQueryExecutor.stats();
+    }
+
+    //엔티티로 조회한 뒤 DTO로 변환. 회원 쿼리 1번 + 팀 IN 쿼리 1번
+    @GetMapping("/v1/members/entities")
+    public List<MemberTeamDto> searchMemberEntities(MemberSearchCondition condition) {
+        return teamBatchLoader.toMemberTeamDtos(memberJpaRepository.searchMembers(condition));
+    }
+
+    @GetMapping("/v1/members/sharded")
+    public List<ShardMemberTeamDto> searchMemberSharded(MemberSearchCondition condition,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        return shardedMemberSearch.search(condition, Math.min(limit, 1000));
+    }
+
+    @GetMapping("/v1/members/cache")
+    public CacheStatsDto searchCacheStats() {
+        return memberSearchCache.stats();
+    }
+
+    @GetMapping("/v1/members/username-index")
+    public UsernameIndexStatsDto usernameIndexStats() {
+        return usernameIndex.stats();
+    }
+
+    //컬럼 스냅샷이 준비돼 있으면 메모리에서, 아니면 DB group by 로 집계한다. (응답의 source)
+    @GetMapping("/v1/members/age-stats")
+    public AgeStatsDto ageStats(MemberSearchCondition condition) {
+        return memberAnalyticsService.ageStats(condition);
+    }
+
+    @GetMapping("/v1/members/age-stats/by-team")
+    public List<AgeStatsDto> ageStatsByTeam(MemberSearchCondition condition) {
+        return memberAnalyticsService.ageStatsByTeam(condition);
+    }
+
+    @GetMapping("/v1/members/columnar")
+    public ColumnarSnapshotStatsDto columnarSnapshotStats() {
+        return memberColumnarSnapshot.stats();
+    }
+
+    @GetMapping("/v1/members/templates")
+    public QueryTemplateStatsDto searchTemplateStats() {
+        return memberSearchQueryTemplates.stats();
+    }
+
+    @GetMapping("/v2/members")
+    public MemberCursorPage searchMemberV2(MemberSearchCondition condition, MemberCursorRequest request) {
+        return memberJpaRepository.searchByCursor(condition, request);
+    }
+
+    //content 쿼리와 count 쿼리를 동시에 실행한다. approximate=true 면 큰 결과의 건수는 팀 통계로 계산
+    @GetMapping("/v3/members")
+    public MemberPage searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                     @RequestParam(defaultValue = "false") boolean approximate) {
+        return memberSearchService.searchPage(condition, pageable, approximate);
+    }
+
+    //결과를 메모리에 모으지 않고 한 row씩 바로 응답에 쓴다.
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition,
+                                                               @RequestParam(defaultValue = "NDJSON") MemberExportFormat format) {
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            format.writeHeader(writer);
+            long rows = memberJpaRepository.exportTo(condition, EXPORT_FETCH_SIZE, dto -> {
+                try {
+                    format.writeRow(objectMapper, dto, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            log.info("member export: format={}, rows={}", format, rows);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
     }
 }
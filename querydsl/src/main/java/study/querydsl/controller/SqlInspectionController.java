@@ -0,0 +1,40 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.IndexAdviceDto;
+import study.querydsl.dto.SqlEndpointStatsDto;
+import study.querydsl.dto.SqlShapeOrder;
+import study.querydsl.dto.SqlShapeStatsDto;
+import study.querydsl.sql.IndexAdvisor;
+import study.querydsl.sql.SqlLatencyRecorder;
+import study.querydsl.sql.SqlStatementCounter;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class SqlInspectionController {
+    private final SqlStatementCounter sqlStatementCounter;
+    private final IndexAdvisor indexAdvisor;
+    private final SqlLatencyRecorder sqlLatencyRecorder;
+
+    @GetMapping("/v1/sql/statements")
+    public Map<String, SqlEndpointStatsDto> statementStats() {
+        return sqlStatementCounter.stats();
+    }
+
+    @GetMapping("/v1/sql/slowest")
+    public List<SqlShapeStatsDto> slowest(@RequestParam(defaultValue = "10") int limit,
+                                          @RequestParam(defaultValue = "P99") SqlShapeOrder orderBy) {
+        return sqlLatencyRecorder.slowest(Math.min(limit, 100), orderBy.comparator());
+    }
+
+    @GetMapping("/v1/sql/index-advice")
+    public List<IndexAdviceDto> indexAdvice(@RequestParam(defaultValue = "true") boolean fullScanOnly) {
+        return indexAdvisor.advise(fullScanOnly);
+    }
+}
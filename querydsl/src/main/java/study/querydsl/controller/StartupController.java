@@ -0,0 +1,28 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.StartupReportDto;
+import study.querydsl.seed.SeedProgress;
+import study.querydsl.seed.SeedRunner;
+import study.querydsl.startup.StartupReport;
+
+@RestController
+@RequiredArgsConstructor
+public class StartupController {
+    private final StartupReport startupReport;
+    private final SeedRunner seedRunner;
+
+    //시작 단계별 시간과 생성이 오래 걸린 빈
+    @GetMapping("/v1/startup")
+    public StartupReportDto startup(@RequestParam(defaultValue = "20") int beans) {
+        return startupReport.report(Math.min(beans, 500));
+    }
+
+    @GetMapping("/v1/startup/seed")
+    public SeedProgress seed() {
+        return seedRunner.progress();
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamFetchStrategy;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.service.TeamService;
+import study.querydsl.stats.TeamStatisticsStore;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamService teamService;
+    private final TeamStatisticsStore teamStatisticsStore;
+
+    @GetMapping("/v1/teams")
+    public List<TeamMembersDto> teams(@RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size,
+                                      @RequestParam(defaultValue = "BATCH") TeamFetchStrategy strategy) {
+        return teamService.findTeamsWithMembers(page, Math.min(size, 100), strategy);
+    }
+
+    @GetMapping("/v1/teams/statistics")
+    public List<TeamStatisticsDto> statistics() {
+        return teamStatisticsStore.findAll();
+    }
+}
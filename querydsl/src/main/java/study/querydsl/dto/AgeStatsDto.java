@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+/**
+ * 회원 나이 집계. 전체 집계면 teamName 은 null.
+ * 조건에 맞는 회원이 없으면 avg, min, max 는 null (SQL 집계 함수와 같다).
+ */
+@Getter
+public class AgeStatsDto {
+    private final String teamName;
+    private final long count;
+    private final long sum;
+    private final Double avg;
+    private final Integer min;
+    private final Integer max;
+    private final AgeStatsSource source;
+
+    public AgeStatsDto(String teamName, long count, long sum, Double avg, Integer min, Integer max,
+                       AgeStatsSource source) {
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = avg;
+        this.min = min;
+        this.max = max;
+        this.source = source;
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+public enum AgeStatsSource {
+    //메모리 컬럼 스냅샷(MemberColumnarSnapshot)에서 계산
+    SNAPSHOT,
+    //스냅샷이 꺼져 있거나 stale 이라 DB에서 group by
+    DATABASE
+}
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class BulkheadStatsDto {
+    private final String name;
+    private final int maxConcurrent;
+    private final int active;
+    private final long accepted;
+    private final long rejected;
+    private final long completed;
+    private final long failed;
+    private final long timedOut;
+
+    public BulkheadStatsDto(String name, int maxConcurrent, int active, long accepted,
+                            long rejected, long completed, long failed, long timedOut) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.active = active;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.failed = failed;
+        this.timedOut = timedOut;
+    }
+}
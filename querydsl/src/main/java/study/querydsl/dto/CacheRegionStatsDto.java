@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class CacheRegionStatsDto {
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    //provider가 지원하지 않으면 -1
+    private final long elementCountInMemory;
+
+    public CacheRegionStatsDto(String region, long hits, long misses, long puts, long elementCountInMemory) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.elementCountInMemory = elementCountInMemory;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
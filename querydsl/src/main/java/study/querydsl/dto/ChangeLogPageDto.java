@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class ChangeLogPageDto {
+    private final List<ChangeRecordDto> records;
+    //다음 요청에 넘길 offset
+    private final long nextOffset;
+    //남아 있는 첫 offset. 요청한 offset 보다 크면 그 사이 변경은 이미 지워졌다.
+    private final long startOffset;
+    //지금까지 쓴 마지막 offset + 1
+    private final long endOffset;
+
+    public ChangeLogPageDto(List<ChangeRecordDto> records, long nextOffset, long startOffset, long endOffset) {
+        this.records = records;
+        this.nextOffset = nextOffset;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+
+@Getter
+public class ChangeRecordDto {
+    private final long offset;
+    //로그에 저장된 JSON 그대로 (outboxId, entity, type, entityId, createdAt, data)
+    @JsonRawValue
+    private final String change;
+
+    public ChangeRecordDto(long offset, String change) {
+        this.offset = offset;
+        this.change = change;
+    }
+}
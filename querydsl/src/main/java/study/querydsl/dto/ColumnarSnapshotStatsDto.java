@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class ColumnarSnapshotStatsDto {
+    private final boolean enabled;
+    private final boolean stale;
+    //삭제 표시된 row 포함
+    private final int rows;
+    private final int liveRows;
+    private final int teams;
+    //이름 사전 크기
+    private final int usernames;
+    private final long rebuilds;
+
+    public ColumnarSnapshotStatsDto(boolean enabled, boolean stale, int rows, int liveRows,
+                                    int teams, int usernames, long rebuilds) {
+        this.enabled = enabled;
+        this.stale = stale;
+        this.rows = rows;
+        this.liveRows = liveRows;
+        this.teams = teams;
+        this.usernames = usernames;
+        this.rebuilds = rebuilds;
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class IndexAdviceDto {
+    private final String sql;
+    private final long executions;
+    private final String plan;
+    //실행 계획에서 tableScan 으로 읽는 테이블
+    private final List<String> fullScanTables;
+    private final List<String> suggestedIndexes;
+    private final String note;
+
+    public IndexAdviceDto(String sql, long executions, String plan, List<String> fullScanTables,
+                          List<String> suggestedIndexes, String note) {
+        this.sql = sql;
+        this.executions = executions;
+        this.plan = plan;
+        this.fullScanTables = fullScanTables;
+        this.suggestedIndexes = suggestedIndexes;
+        this.note = note;
+    }
+
+    public boolean isFullScan() {
+        return !fullScanTables.isEmpty();
+    }
+}
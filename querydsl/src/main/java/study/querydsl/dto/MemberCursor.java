@@ -0,0 +1,47 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 마지막으로 내려준 row의 정렬 키.
+ * 클라이언트에는 base64로 인코딩된 opaque 문자열로만 노출한다.
+ */
+@Getter
+public class MemberCursor {
+    private final MemberCursorSort sort;
+    private final int age;
+    private final Long memberId;
+
+    public MemberCursor(MemberCursorSort sort, int age, Long memberId) {
+        this.sort = sort;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor of(MemberCursorSort sort, MemberTeamDto last) {
+        return new MemberCursor(sort, last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + age + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            return new MemberCursor(MemberCursorSort.valueOf(parts[0]),
+                    Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("잘못된 cursor 입니다: " + cursor, e);
+        }
+    }
+}
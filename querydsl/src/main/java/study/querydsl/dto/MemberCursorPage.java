@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberCursorPage {
+    private final List<MemberTeamDto> content;
+    private final boolean hasNext;
+    private final String nextCursor;
+    //count 쿼리를 생략한 경우 null
+    private final Long totalCount;
+
+    public MemberCursorPage(List<MemberTeamDto> content, boolean hasNext, String nextCursor, Long totalCount) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+}
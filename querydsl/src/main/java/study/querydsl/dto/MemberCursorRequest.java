@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberCursorRequest {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private String cursor;
+    private Integer size;
+    private MemberCursorSort sort = MemberCursorSort.ID;
+    //true일 때만 count 쿼리를 날린다.
+    private boolean withTotal;
+
+    public int getPageSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,11 @@
+package study.querydsl.dto;
+
+/**
+ * keyset 페이징 정렬 기준
+ * ID  : member_id 순
+ * AGE : (age, member_id) 순
+ */
+public enum MemberCursorSort {
+    ID,
+    AGE
+}
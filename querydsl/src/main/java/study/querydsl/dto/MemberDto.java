@@ -3,9 +3,12 @@ package study.querydsl.dto;
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import study.querydsl.entity.Member;
+import study.querydsl.projection.GenerateProjection;
 
 @Data
 @NoArgsConstructor
+@GenerateProjection(from = Member.class)
 public class MemberDto {
     private String username;
     private int age;
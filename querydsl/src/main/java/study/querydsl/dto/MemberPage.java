@@ -0,0 +1,31 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberPage {
+    private final List<MemberTeamDto> content;
+    private final int page;
+    private final int size;
+    private final long totalCount;
+    private final TotalCountSource totalCountSource;
+
+    public MemberPage(List<MemberTeamDto> content, int page, int size,
+                      long totalCount, TotalCountSource totalCountSource) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalCount = totalCount;
+        this.totalCountSource = totalCountSource;
+    }
+
+    public int getTotalPages() {
+        return size == 0 ? 1 : (int) Math.ceil((double) totalCount / size);
+    }
+
+    public boolean isApproximate() {
+        return totalCountSource == TotalCountSource.APPROXIMATE;
+    }
+}
@@ -5,6 +5,9 @@ import lombok.Data;
 @Data
 public class MemberSearchCondition {
     private String username;
+    //대소문자 구분 없는 부분 일치 / 시작 일치 (UsernameIndex)
+    private String usernameContains;
+    private String usernameStartsWith;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
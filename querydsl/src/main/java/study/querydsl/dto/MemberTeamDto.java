@@ -2,8 +2,13 @@ package study.querydsl.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.projection.GenerateProjection;
 
 @Data
+//team 은 left join 으로 조회해야 하므로 of(member) 는 만들지 않는다. (implicit join 은 inner join)
+@GenerateProjection
 public class MemberTeamDto {
     private Long memberId;
     private String username;
@@ -19,4 +24,11 @@ public class MemberTeamDto {
         this.teamId = teamId;
         this.teamName = teamName;
     }
+
+    //team은 member.getTeam()을 초기화하지 않도록 따로 받는다. (TeamBatchLoader)
+    public MemberTeamDto(Member member, Team team) {
+        this(member.getId(), member.getUsername(), member.getAge(),
+                team != null ? team.getId() : null,
+                team != null ? team.getName() : null);
+    }
 }
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class QueryTemplateStatsDto {
+    private final int compiledShapes;
+    private final long hits;
+    private final long averageCompileMicros;
+    //템플릿 재사용으로 생략된 쿼리 조립/JPQL 직렬화 시간 추정치 (hits * 평균 컴파일 시간)
+    private final long estimatedSavedMillis;
+
+    public QueryTemplateStatsDto(int compiledShapes, long hits, long averageCompileMicros, long estimatedSavedMillis) {
+        this.compiledShapes = compiledShapes;
+        this.hits = hits;
+        this.averageCompileMicros = averageCompileMicros;
+        this.estimatedSavedMillis = estimatedSavedMillis;
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class SecondLevelCacheStatsDto {
+    private final boolean statisticsEnabled;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long queryCacheHits;
+    private final long queryCacheMisses;
+    private final long queryCachePuts;
+    //DB에서 읽어온 엔티티 수 / 실행한 JDBC statement 수
+    private final long entityLoads;
+    private final long prepareStatements;
+    private final List<CacheRegionStatsDto> regions;
+
+    public SecondLevelCacheStatsDto(boolean statisticsEnabled, long hits, long misses, long puts,
+                                    long queryCacheHits, long queryCacheMisses, long queryCachePuts,
+                                    long entityLoads, long prepareStatements, List<CacheRegionStatsDto> regions) {
+        this.statisticsEnabled = statisticsEnabled;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.queryCacheHits = queryCacheHits;
+        this.queryCacheMisses = queryCacheMisses;
+        this.queryCachePuts = queryCachePuts;
+        this.entityLoads = entityLoads;
+        this.prepareStatements = prepareStatements;
+        this.regions = regions;
+    }
+}
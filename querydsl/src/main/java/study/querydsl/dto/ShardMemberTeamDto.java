@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 샤드 검색 결과. member_id/team_id 는 샤드마다 따로 채번되므로 (shardId, memberId) 가 회원을 가리킨다.
+ */
+@Data
+public class ShardMemberTeamDto {
+    private int shardId;
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+
+    public ShardMemberTeamDto(int shardId, MemberTeamDto dto) {
+        this.shardId = shardId;
+        this.memberId = dto.getMemberId();
+        this.username = dto.getUsername();
+        this.age = dto.getAge();
+        this.teamId = dto.getTeamId();
+        this.teamName = dto.getTeamName();
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class SqlEndpointStatsDto {
+    private final long requests;
+    private final long statements;
+    private final long maxStatements;
+    private final long nPlusOneRequests;
+    private final long overBudgetRequests;
+
+    public SqlEndpointStatsDto(long requests, long statements, long maxStatements,
+                               long nPlusOneRequests, long overBudgetRequests) {
+        this.requests = requests;
+        this.statements = statements;
+        this.maxStatements = maxStatements;
+        this.nPlusOneRequests = nPlusOneRequests;
+        this.overBudgetRequests = overBudgetRequests;
+    }
+
+    public double getAverageStatements() {
+        return requests == 0 ? 0 : (double) statements / requests;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import java.util.Comparator;
+
+public enum SqlShapeOrder {
+    P99(Comparator.comparingLong(SqlShapeStatsDto::getP99Micros)),
+    MAX(Comparator.comparingLong(SqlShapeStatsDto::getMaxMicros)),
+    //전체 DB 시간에서 차지하는 비중
+    TOTAL(Comparator.comparingLong(SqlShapeStatsDto::getTotalMillis)),
+    COUNT(Comparator.comparingLong(SqlShapeStatsDto::getCount)),
+    ROWS(Comparator.comparingLong(SqlShapeStatsDto::getRows));
+
+    private final Comparator<SqlShapeStatsDto> comparator;
+
+    SqlShapeOrder(Comparator<SqlShapeStatsDto> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<SqlShapeStatsDto> comparator() {
+        return comparator;
+    }
+}
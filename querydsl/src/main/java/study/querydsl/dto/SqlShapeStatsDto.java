@@ -0,0 +1,34 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class SqlShapeStatsDto {
+    private final String sql;
+    private final long count;
+    private final long errors;
+    private final long totalMillis;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    //select 결과로 읽은 row 수 합계
+    private final long rows;
+
+    public SqlShapeStatsDto(String sql, long count, long errors, long totalMillis,
+                            long p50Micros, long p95Micros, long p99Micros, long maxMicros, long rows) {
+        this.sql = sql;
+        this.count = count;
+        this.errors = errors;
+        this.totalMillis = totalMillis;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.rows = rows;
+    }
+
+    public double getAverageRows() {
+        return count == 0 ? 0 : (double) rows / count;
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class StartupBeanDto {
+    private final String beanName;
+    //의존하는 빈 생성 시간 포함
+    private final long millis;
+    //이 빈 자신의 생성 시간 (의존 빈 생성 시간 제외)
+    private final long selfMillis;
+
+    public StartupBeanDto(String beanName, long millis, long selfMillis) {
+        this.beanName = beanName;
+        this.millis = millis;
+        this.selfMillis = selfMillis;
+    }
+}
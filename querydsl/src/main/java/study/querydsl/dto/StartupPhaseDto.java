@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class StartupPhaseDto {
+    private final String name;
+    //step 이면 같은 이름의 step 수, ddl 이면 statement 수
+    private final long count;
+    private final long millis;
+
+    public StartupPhaseDto(String name, long count, long millis) {
+        this.name = name;
+        this.count = count;
+        this.millis = millis;
+    }
+}
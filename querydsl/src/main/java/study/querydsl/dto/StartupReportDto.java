@@ -0,0 +1,33 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 시작 시간 분석. timelineAvailable 이 false 면 (BufferingApplicationStartup 없이 시작한 경우, 예: 테스트)
+ * steps, slowestBeans 는 비어 있고 phases 에는 직접 잰 항목만 있다.
+ */
+@Getter
+public class StartupReportDto {
+    private final boolean timelineAvailable;
+    //SpringApplication.run 시작부터 ApplicationReadyEvent 까지. 준비 전이면 null
+    private final Long readyMillis;
+    //JVM 시작부터 ApplicationReadyEvent 까지. 준비 전이면 null
+    private final Long jvmUptimeAtReadyMillis;
+    //context refresh, Hibernate, ddl-auto, Q 타입 초기화 등 주요 구간
+    private final List<StartupPhaseDto> phases;
+    //step 이름별 self 시간 합계 (긴 순)
+    private final List<StartupPhaseDto> steps;
+    private final List<StartupBeanDto> slowestBeans;
+
+    public StartupReportDto(boolean timelineAvailable, Long readyMillis, Long jvmUptimeAtReadyMillis,
+                            List<StartupPhaseDto> phases, List<StartupPhaseDto> steps, List<StartupBeanDto> slowestBeans) {
+        this.timelineAvailable = timelineAvailable;
+        this.readyMillis = readyMillis;
+        this.jvmUptimeAtReadyMillis = jvmUptimeAtReadyMillis;
+        this.phases = phases;
+        this.steps = steps;
+        this.slowestBeans = slowestBeans;
+    }
+}
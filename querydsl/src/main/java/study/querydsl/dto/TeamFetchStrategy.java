@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+public enum TeamFetchStrategy {
+    //팀 페이징 + members 배치 로딩(in 쿼리)
+    BATCH,
+    //팀 id 페이징 + id로 members fetch join
+    FETCH_JOIN
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamStatisticsDto {
+    private final Long teamId;
+    private final String teamName;
+    private final long count;
+    private final long sum;
+    private final Integer min;
+    private final Integer max;
+
+    public TeamStatisticsDto(Long teamId, String teamName, long count, long sum, Integer min, Integer max) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public Double getAvg() {
+        return count == 0 ? null : (double) sum / count;
+    }
+}
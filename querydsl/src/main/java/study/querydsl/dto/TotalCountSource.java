@@ -0,0 +1,12 @@
+package study.querydsl.dto;
+
+public enum TotalCountSource {
+    //조회된 페이지만으로 전체 건수를 알 수 있어서 count 쿼리를 생략
+    PAGE,
+    //content 쿼리와 동시에 다른 커넥션에서 count
+    PARALLEL,
+    //트랜잭션 안이거나 bulkhead가 가득 차서 같은 스레드에서 count
+    SEQUENTIAL,
+    //팀 통계(TeamStatisticsStore)로 계산한 근사값
+    APPROXIMATE
+}
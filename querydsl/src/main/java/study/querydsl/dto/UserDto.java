@@ -1,9 +1,14 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import study.querydsl.entity.Member;
+import study.querydsl.projection.GenerateProjection;
+import study.querydsl.projection.MappedFrom;
 
 @Data
+@GenerateProjection(from = Member.class)
 public class UserDto {
+    @MappedFrom("username")
     private String name;
     private int age;
 }
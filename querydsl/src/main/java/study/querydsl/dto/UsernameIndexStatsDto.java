@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class UsernameIndexStatsDto {
+    private final boolean ready;
+    private final int members;
+    private final int grams;
+    private final int maxCandidates;
+    private final long rebuilds;
+    //색인으로 id 목록을 만든 횟수
+    private final long lookups;
+    //SQL like 조건으로 대신한 횟수
+    private final long fallbacks;
+
+    public UsernameIndexStatsDto(boolean ready, int members, int grams, int maxCandidates,
+                                 long rebuilds, long lookups, long fallbacks) {
+        this.ready = ready;
+        this.members = members;
+        this.grams = grams;
+        this.maxCandidates = maxCandidates;
+        this.rebuilds = rebuilds;
+        this.lookups = lookups;
+        this.fallbacks = fallbacks;
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * chunk 커밋과 같은 트랜잭션에서 갱신되는 진행 위치.
+ * 실패 후 다시 실행하면 lastId 다음부터 이어서 처리한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkJobCheckpoint {
+
+    @Id
+    private String jobName;
+    //마지막으로 커밋된 chunk의 pk 상한. null 이면 아직 처리한 chunk가 없다.
+    private Long lastId;
+    private long processedRows;
+    private long chunks;
+    @Enumerated(EnumType.STRING)
+    private BulkJobStatus status;
+    @Column(length = 1000)
+    private String error;
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobName) {
+        this.jobName = jobName;
+        reset();
+    }
+
+    public void reset() {
+        lastId = null;
+        processedRows = 0;
+        chunks = 0;
+        error = null;
+        status = BulkJobStatus.RUNNING;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void chunkCommitted(Long upperId, long rows) {
+        lastId = upperId;
+        processedRows += rows;
+        chunks++;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void resumed() {
+        status = BulkJobStatus.RUNNING;
+        error = null;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void completed() {
+        status = BulkJobStatus.COMPLETED;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void failed(String error) {
+        this.status = BulkJobStatus.FAILED;
+        this.error = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
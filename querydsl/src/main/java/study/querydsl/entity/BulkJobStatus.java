@@ -0,0 +1,5 @@
+package study.querydsl.entity;
+
+public enum BulkJobStatus {
+    RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,47 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 변경 로그로 옮길 수 없는 outbox row. (segment 보다 큰 레코드, JSON 이 아닌 payload)
+ * 한 row 때문에 relay 가 같은 batch 를 계속 다시 시도하며 멈추지 않도록 ChangeLogRelay 가 여기로 옮긴다.
+ */
+@Entity
+@Table(name = "change_outbox_dead_letter")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "entityType", "changeType", "entityId", "reason"})
+public class ChangeOutboxDeadLetter {
+
+    //원래 outbox id. 로그에 남기는 표시 레코드의 outboxId 와 같다.
+    @Id
+    private Long id;
+    private String entityType;
+    private String changeType;
+    private Long entityId;
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    private LocalDateTime createdAt;
+    @Column(length = 1000)
+    private String reason;
+    private LocalDateTime deadLetteredAt;
+
+    public ChangeOutboxDeadLetter(ChangeOutboxEntry entry, String reason) {
+        this.id = entry.getId();
+        this.entityType = entry.getEntityType();
+        this.changeType = entry.getChangeType();
+        this.entityId = entry.getEntityId();
+        this.payload = entry.getPayload();
+        this.createdAt = entry.getCreatedAt();
+        this.reason = reason;
+        this.deadLetteredAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Member/Team 변경을 같은 트랜잭션에서 남기는 outbox.
+ * 엔티티 flush 도중에 JDBC 로 insert 하므로 (ChangeOutbox) 엔티티로 저장하지 않는다. ChangeLogRelay 가 읽고 지운다.
+ */
+@Entity
+@Table(name = "change_outbox")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "entityType", "changeType", "entityId"})
+public class ChangeOutboxEntry {
+
+    //커밋 순서가 아니라 채번 순서. relay 는 지운 row 를 기준으로 진행하므로 늦게 커밋된 작은 id 도 빠지지 않는다.
+    //ChangeOutbox 가 JDBC batch insert 전에 이 generator 로 미리 채번한다. (50개 단위)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_outbox_seq_generator")
+    @SequenceGenerator(name = "change_outbox_seq_generator", sequenceName = "change_outbox_seq", allocationSize = 50)
+    private Long id;
+    //member, team
+    private String entityType;
+    //INSERT, UPDATE, DELETE, BULK
+    private String changeType;
+    //BULK 이면 null
+    private Long entityId;
+    //변경 내용 JSON
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 엔티티를 거치지 않은 DML(Querydsl/JPQL 벌크 update, delete)이 커밋되었다.
+ * 바뀐 row 의 id 는 알 수 없다. sqlWithValues(바인딩 값이 들어간 SQL)의 조건과 값, rowCount 로 범위를 알 수 있고,
+ * 그렇게 할 수 없는 쪽은 해당 테이블 기준 데이터를 다시 만들어야 한다.
+ */
+@Getter
+@ToString
+public class BulkChangeEvent {
+    private final String table;
+    //? 가 남아 있는 SQL
+    private final String sql;
+    private final String sqlWithValues;
+    private final int rowCount;
+
+    public BulkChangeEvent(String table, String sql, String sqlWithValues, int rowCount) {
+        this.table = table;
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.rowCount = rowCount;
+    }
+}
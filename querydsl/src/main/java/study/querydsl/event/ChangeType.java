@@ -0,0 +1,7 @@
+package study.querydsl.event;
+
+public enum ChangeType {
+    INSERT,
+    UPDATE,
+    DELETE
+}
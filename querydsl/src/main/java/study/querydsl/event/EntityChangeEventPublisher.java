@@ -0,0 +1,315 @@
+package study.querydsl.event;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.changelog.ChangeOutbox;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlStatementListener;
+import study.querydsl.sql.SqlStatements;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.SQLException;
+
+/**
+ * Member/Team 변경을 커밋 이후에 스프링 이벤트로 발행한다.
+ *
+ * - 엔티티 변경: Hibernate post-commit 이벤트 → MemberChangedEvent / TeamChangedEvent
+ * - 벌크 DML: member/team 테이블 DML 중 엔티티 pre/post 이벤트 사이에서 나오지 않은 것 → BulkChangeEvent
+ *   prepare 시점(StatementInspector)에 골라 두고, 실행(p6spy executeUpdate) 시점에 바인딩 값과 row 수를 붙인다.
+ * change-log.enabled 면 같은 변경을 커밋 전에 ChangeOutbox 에도 남긴다. (엔티티 변경은 post 이벤트, 벌크 DML 은 실행 시점)
+ */
+@Slf4j
+@Component
+public class EntityChangeEventPublisher extends JdbcEventListener implements SqlStatementListener, SmartInitializingSingleton {
+
+    //엔티티 insert/update/delete 처리 중이면 true. 이때 나가는 DML은 벌크 연산이 아니다.
+    private static final ThreadLocal<Boolean> ENTITY_DML = new ThreadLocal<>();
+    //prepare 된 벌크 DML. 같은 SQL 이 실행되면 기록/발행한다.
+    private static final ThreadLocal<PendingBulk> PENDING_BULK = new ThreadLocal<>();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final ChangeOutbox changeOutbox;
+
+    public EntityChangeEventPublisher(ApplicationEventPublisher eventPublisher,
+                                      ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                      ChangeOutbox changeOutbox) {
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.changeOutbox = changeOutbox;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        EventListenerRegistry registry = entityManagerFactory.getObject().unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        EntityDmlTracker tracker = new EntityDmlTracker();
+        registry.appendListeners(EventType.PRE_INSERT, tracker);
+        registry.appendListeners(EventType.PRE_UPDATE, tracker);
+        registry.appendListeners(EventType.PRE_DELETE, tracker);
+        registry.appendListeners(EventType.POST_INSERT, tracker);
+        registry.appendListeners(EventType.POST_UPDATE, tracker);
+        registry.appendListeners(EventType.POST_DELETE, tracker);
+
+        CommitListener commitListener = new CommitListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, commitListener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, commitListener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, commitListener);
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        String table = SqlStatements.writeTarget(sql);
+        if (table == null || !(table.equals("member") || table.equals("team"))) {
+            return;
+        }
+        if (Boolean.TRUE.equals(ENTITY_DML.get())) {
+            //엔티티 하나당 한 번만 소비. post 이벤트 전에 예외가 나도 플래그가 남지 않도록.
+            ENTITY_DML.remove();
+            return;
+        }
+        PENDING_BULK.set(new PendingBulk(table, sql));
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos,
+                                     int rowCount, SQLException e) {
+        onBulkExecuted(statementInformation, rowCount, e);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos,
+                                     String sql, int rowCount, SQLException e) {
+        onBulkExecuted(statementInformation, rowCount, e);
+    }
+
+    private void onBulkExecuted(StatementInformation statementInformation, int rowCount, SQLException e) {
+        PendingBulk pending = PENDING_BULK.get();
+        if (pending == null || !pending.sql.equals(statementInformation.getSql())) {
+            return;
+        }
+        PENDING_BULK.remove();
+        if (e != null) {
+            //실행에 실패한 DML 은 바뀐 row 가 없다.
+            return;
+        }
+        //청크 단위 벌크 작업처럼 같은 SQL 이 여러 번 나가도 바인딩 값으로 어떤 범위가 어떻게 바뀌었는지 구분된다.
+        BulkChangeEvent event = new BulkChangeEvent(pending.table,
+                SqlStatements.stripComments(pending.sql).trim(),
+                stripLeadingComment(statementInformation.getSqlWithValues()),
+                rowCount);
+        if (changeOutbox.isEnabled()) {
+            changeOutbox.recordBulk(event);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    //바인딩 값 안의 /* 는 건드리지 않도록 use_sql_comments 가 앞에 붙인 주석만 뗀다.
+    private static String stripLeadingComment(String sql) {
+        String trimmed = sql.trim();
+        int end = trimmed.startsWith("/*") ? trimmed.indexOf("*/") : -1;
+        return end < 0 ? trimmed : trimmed.substring(end + 2).trim();
+    }
+
+    private void publish(Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            //이미 커밋된 이후라 예외를 던져도 되돌릴 수 없다.
+            log.error("change event 처리 실패: {}", event, e);
+        }
+    }
+
+    private static boolean tracked(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    private static Object value(EntityPersister persister, Object[] state, String property) {
+        return state[persister.getEntityMetamodel().getPropertyIndex(property)];
+    }
+
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int age(Object age) {
+        return age == null ? 0 : (Integer) age;
+    }
+
+    private MemberChangedEvent memberEvent(ChangeType type, Object id, EntityPersister persister,
+                                           Object[] state, Object[] oldState) {
+        boolean oldStateKnown = oldState != null;
+        Object[] old = oldStateKnown ? oldState : state;
+        return new MemberChangedEvent(type, (Long) id,
+                (String) value(persister, state, "username"),
+                age(value(persister, state, "age")),
+                teamId(value(persister, state, "team")),
+                oldStateKnown,
+                (String) value(persister, old, "username"),
+                age(value(persister, old, "age")),
+                teamId(value(persister, old, "team")));
+    }
+
+    private Object changeEvent(ChangeType type, Object id, EntityPersister persister, Object[] state, Object[] oldState) {
+        if (persister.getMappedClass() == Member.class) {
+            return memberEvent(type, id, persister, state, oldState);
+        }
+        return new TeamChangedEvent(type, (Long) id, (String) value(persister, state, "name"));
+    }
+
+    private static class PendingBulk {
+        private final String table;
+        private final String sql;
+
+        private PendingBulk(String table, String sql) {
+            this.table = table;
+            this.sql = sql;
+        }
+    }
+
+    private class EntityDmlTracker implements PreInsertEventListener, PreUpdateEventListener,
+            PreDeleteEventListener, PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public boolean onPreInsert(PreInsertEvent event) {
+            ENTITY_DML.set(tracked(event.getPersister()) ? Boolean.TRUE : null);
+            return false;
+        }
+
+        @Override
+        public boolean onPreUpdate(PreUpdateEvent event) {
+            ENTITY_DML.set(tracked(event.getPersister()) ? Boolean.TRUE : null);
+            return false;
+        }
+
+        @Override
+        public boolean onPreDelete(PreDeleteEvent event) {
+            ENTITY_DML.set(tracked(event.getPersister()) ? Boolean.TRUE : null);
+            return false;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            ENTITY_DML.remove();
+            if (changeOutbox.isEnabled() && tracked(event.getPersister())) {
+                changeOutbox.record(event.getSession(),
+                        changeEvent(ChangeType.INSERT, event.getId(), event.getPersister(), event.getState(), null));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            ENTITY_DML.remove();
+            if (changeOutbox.isEnabled() && tracked(event.getPersister())) {
+                changeOutbox.record(event.getSession(), changeEvent(ChangeType.UPDATE, event.getId(),
+                        event.getPersister(), event.getState(), event.getOldState()));
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            ENTITY_DML.remove();
+            if (changeOutbox.isEnabled() && tracked(event.getPersister())) {
+                changeOutbox.record(event.getSession(), changeEvent(ChangeType.DELETE, event.getId(),
+                        event.getPersister(), event.getDeletedState(), event.getDeletedState()));
+            }
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+
+    private class CommitListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (tracked(event.getPersister())) {
+                publish(changeEvent(ChangeType.INSERT, event.getId(), event.getPersister(), event.getState(), null));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (tracked(event.getPersister())) {
+                publish(changeEvent(ChangeType.UPDATE, event.getId(), event.getPersister(),
+                        event.getState(), event.getOldState()));
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (tracked(event.getPersister())) {
+                publish(changeEvent(ChangeType.DELETE, event.getId(), event.getPersister(),
+                        event.getDeletedState(), event.getDeletedState()));
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return tracked(persister);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 Member 변경.
+ * INSERT는 old* 값이, DELETE는 new 값(username, age, teamId)이 이전 값과 같다.
+ * oldStateKnown이 false면 변경 전 값을 알 수 없는 경우다. (detached 엔티티 merge 등)
+ */
+@Getter
+@ToString
+public class MemberChangedEvent {
+    private final ChangeType type;
+    private final Long memberId;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    private final boolean oldStateKnown;
+    private final String oldUsername;
+    private final int oldAge;
+    private final Long oldTeamId;
+
+    public MemberChangedEvent(ChangeType type, Long memberId,
+                              String username, int age, Long teamId,
+                              boolean oldStateKnown, String oldUsername, int oldAge, Long oldTeamId) {
+        this.type = type;
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.oldStateKnown = oldStateKnown;
+        this.oldUsername = oldUsername;
+        this.oldAge = oldAge;
+        this.oldTeamId = oldTeamId;
+    }
+}
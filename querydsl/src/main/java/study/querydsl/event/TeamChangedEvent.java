@@ -0,0 +1,21 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 Team 변경.
+ */
+@Getter
+@ToString
+public class TeamChangedEvent {
+    private final ChangeType type;
+    private final Long teamId;
+    private final String name;
+
+    public TeamChangedEvent(ChangeType type, Long teamId, String name) {
+        this.type = type;
+        this.teamId = teamId;
+        this.name = name;
+    }
+}
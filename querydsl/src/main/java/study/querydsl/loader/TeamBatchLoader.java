@@ -0,0 +1,120 @@
+package study.querydsl.loader;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 요청 단위 team 배치 로더 (DataLoader 방식).
+ *
+ * load(teamId)로 필요한 팀 id를 모아두고 dispatch() 때 IN 쿼리 한 번으로 가져온다.
+ * 가져온 팀은 요청이 끝날 때까지 기억하므로 같은 팀을 다시 요청해도 쿼리가 나가지 않는다.
+ * 로딩된 Team은 영속성 컨텍스트에도 올라가므로, 이후 member.getTeam() 프록시 초기화도 쿼리 없이 끝난다.
+ */
+@Component
+@RequestScope
+public class TeamBatchLoader {
+
+    //IN 절 파라미터 수 제한
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+
+    private final Map<Long, CompletableFuture<Team>> loaded = new HashMap<>();
+    private final Set<Long> pending = new LinkedHashSet<>();
+    private int dispatches;
+
+    public TeamBatchLoader(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    public CompletableFuture<Team> load(Long teamId) {
+        if (teamId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loaded.computeIfAbsent(teamId, id -> {
+            pending.add(id);
+            return new CompletableFuture<>();
+        });
+    }
+
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.clear();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size()));
+            List<Team> teams = queryFactory
+                    .selectFrom(team)
+                    .where(team.id.in(batch))
+                    .fetch();
+            dispatches++;
+            for (Team t : teams) {
+                loaded.get(t.getId()).complete(t);
+            }
+            //없는 팀은 null로 기억한다.
+            for (Long id : batch) {
+                loaded.get(id).complete(null);
+            }
+        }
+    }
+
+    public Team get(Long teamId) {
+        CompletableFuture<Team> future = load(teamId);
+        if (!future.isDone()) {
+            dispatch();
+        }
+        return future.join();
+    }
+
+    /**
+     * 회원 목록을 MemberTeamDto로 바꾼다. 회원 쿼리 1번 + 이 메서드의 팀 쿼리 1번으로 끝난다.
+     */
+    public List<MemberTeamDto> toMemberTeamDtos(Collection<Member> members) {
+        List<CompletableFuture<Team>> teams = new ArrayList<>(members.size());
+        for (Member member : members) {
+            teams.add(load(teamIdOf(member)));
+        }
+        dispatch();
+
+        List<MemberTeamDto> result = new ArrayList<>(members.size());
+        int i = 0;
+        for (Member member : members) {
+            result.add(new MemberTeamDto(member, teams.get(i++).join()));
+        }
+        return result;
+    }
+
+    public int getDispatches() {
+        return dispatches;
+    }
+
+    //프록시를 초기화하지 않고 id만 꺼낸다.
+    private static Long teamIdOf(Member member) {
+        Team team = member.getTeam();
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+}
@@ -0,0 +1,260 @@
+package study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberCursorRequest;
+import study.querydsl.dto.MemberCursorSort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.entity.Member;
+import study.querydsl.search.UsernameIndex;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchPredicates.ageGoe;
+import static study.querydsl.repository.MemberSearchPredicates.ageLoe;
+import static study.querydsl.repository.MemberSearchPredicates.searchWhere;
+import static study.querydsl.repository.MemberSearchPredicates.teamNameEq;
+import static study.querydsl.repository.MemberSearchPredicates.usernameEq;
+
+@Repository
+public class MemberJpaRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final UsernameIndex usernameIndex;
+
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, UsernameIndex usernameIndex) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.usernameIndex = usernameIndex;
+    }
+
+    public void save(Member member) {
+        em.persist(member);
+    }
+
+    public Optional<Member> findById(Long id) {
+        Member findMember = em.find(Member.class, id);
+        return Optional.ofNullable(findMember);
+    }
+
+    public List<Member> findAll() {
+        return em.createQuery("select m from Member m", Member.class)
+                .getResultList();
+    }
+
+    public List<Member> findAll_Querydsl() {
+        return queryFactory
+                .selectFrom(member)
+                .fetch();
+    }
+
+    public List<Member> findByUsername(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
+    public List<Member> findByUsername_Querydsl(String username) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        usernameIndex.usernameMatch(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .fetch();
+    }
+
+    /**
+     * search()와 같은 조건으로 엔티티를 조회한다. team은 fetch join 하지 않는다. (TeamBatchLoader로 따로 로딩)
+     */
+    @Transactional(readOnly = true)
+    public List<Member> searchMembers(MemberSearchCondition condition) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(searchWhere(condition, usernameIndex.usernameMatch(condition)))
+                .fetch();
+    }
+
+    /**
+     * keyset(seek) 페이징.
+     * offset 대신 마지막 row의 정렬 키보다 뒤에 있는 row만 조회하기 때문에 몇 번째 페이지든 비용이 같다.
+     * size+1 건을 조회해서 다음 페이지 존재 여부를 판단하고, count 쿼리는 필요할 때만 날린다.
+     */
+    @Transactional(readOnly = true)
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursorRequest request) {
+        int size = request.getPageSize();
+        MemberCursor cursor = MemberCursor.decode(request.getCursor());
+        MemberCursorSort sort = cursor != null ? cursor.getSort() : request.getSort();
+
+        List<MemberTeamDto> content = queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        usernameIndex.usernameMatch(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        after(cursor)
+                )
+                .orderBy(orderBy(sort))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        String nextCursor = hasNext ? MemberCursor.of(sort, content.get(content.size() - 1)).encode() : null;
+
+        Long totalCount = null;
+        if (request.isWithTotal()) {
+            //첫 페이지가 size보다 작으면 조회된 건수가 곧 전체 건수다.
+            totalCount = cursor == null && !hasNext ? (long) content.size() : count(condition);
+        }
+        return new MemberCursorPage(content, hasNext, nextCursor, totalCount);
+    }
+
+    /**
+     * 대용량 export 용 조회.
+     * List로 모으지 않고 StatelessSession + ScrollableResults(FORWARD_ONLY)로 한 row씩 consumer에 넘긴다.
+     * StatelessSession은 영속성 컨텍스트(1차 캐시)가 없어서 따로 clear 하지 않아도 메모리가 일정하게 유지된다.
+     */
+    public long exportTo(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try (CloseableIterator<MemberTeamDto> iterator = new HibernateQuery<>(session)
+                    .select(new MemberTeamDtoProjection(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchWhere(condition, usernameIndex.usernameMatch(condition)))
+                    .orderBy(member.id.asc())
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .iterate()) {
+                long count = 0;
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    count++;
+                }
+                return count;
+            } finally {
+                //조회만 했으므로 커밋할 필요가 없다.
+                tx.rollback();
+            }
+        }
+    }
+
+    /**
+     * search()와 같은 조건의 offset 페이지. 페이지가 바뀌어도 순서가 유지되도록 member_id로 정렬한다.
+     */
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition condition, Pageable pageable) {
+        return queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchWhere(condition, usernameIndex.usernameMatch(condition)))
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
+    public long count(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        //left join 이라 teamName 조건이 없으면 join 해도 건수가 같다.
+        if (hasText(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+        Long count = query
+                .where(
+                        usernameEq(condition.getUsername()),
+                        usernameIndex.usernameMatch(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        if (cursor.getSort() == MemberCursorSort.AGE) {
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] orderBy(MemberCursorSort sort) {
+        if (sort == MemberCursorSort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 조건.
+ * member left join team 을 기준으로 하며, 값이 없는 조건은 null을 반환해서 where 에서 무시되게 한다.
+ */
+public final class MemberSearchPredicates {
+
+    private MemberSearchPredicates() {
+    }
+
+    public static Predicate[] searchWhere(MemberSearchCondition condition) {
+        return searchWhere(condition, usernameMatch(condition));
+    }
+
+    /**
+     * usernameContains / usernameStartsWith 조건을 usernameMatch 로 바꿔서 쓴다. (UsernameIndex 의 member.id in (...))
+     */
+    public static Predicate[] searchWhere(MemberSearchCondition condition, Predicate usernameMatch) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                usernameMatch,
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    /**
+     * lower(username) like 조건. 인덱스를 탈 수 없으므로 UsernameIndex 를 쓸 수 없을 때만 사용한다.
+     */
+    public static Predicate usernameMatch(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                usernameContains(condition.getUsernameContains()),
+                usernameStartsWith(condition.getUsernameStartsWith()));
+    }
+
+    public static BooleanExpression usernameContains(String text) {
+        return hasText(text) ? member.username.containsIgnoreCase(text) : null;
+    }
+
+    public static BooleanExpression usernameStartsWith(String text) {
+        return hasText(text) ? member.username.startsWithIgnoreCase(text) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,173 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.dto.QueryTemplateStatsDto;
+import study.querydsl.search.UsernameIndex;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchPredicates.searchWhere;
+
+/**
+ * MemberSearchCondition 검색을 조건 조합(shape)별 JPQL 템플릿으로 캐싱한다.
+ *
+ * username, teamName, ageGoe, ageLoe 의 존재 여부 조합은 2^4 = 16가지 뿐이므로
+ * shape 마다 Querydsl 쿼리를 Param으로 한 번만 조립/직렬화해 두고, 요청마다 파라미터 바인딩만 한다.
+ * JPQL 문자열이 항상 같기 때문에 Hibernate의 query plan cache 에도 그대로 적중한다.
+ * 결과 캐시는 호출하는 쪽(MemberSearchCache)에서 한다. Hibernate 쿼리 캐시에는 넣지 않는다.
+ * usernameContains / usernameStartsWith 조건은 UsernameIndex 가 만든 id 목록에 따라 쿼리가 달라지므로 템플릿 없이 조회한다.
+ */
+@Repository
+public class MemberSearchQueryTemplates {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final Param<String> usernameParam = new Param<>(String.class, "username");
+    private static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+    private static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final UsernameIndex usernameIndex;
+    private final AtomicReferenceArray<Template> templates = new AtomicReferenceArray<>(16);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder compiles = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+
+    public MemberSearchQueryTemplates(EntityManager em, JPAQueryFactory queryFactory, UsernameIndex usernameIndex) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.usernameIndex = usernameIndex;
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (hasText(condition.getUsernameContains()) || hasText(condition.getUsernameStartsWith())) {
+            return queryFactory
+                    .select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchWhere(condition, usernameIndex.usernameMatch(condition)))
+                    .fetch();
+        }
+        Template template = template(shapeOf(condition));
+
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        params.put(usernameParam, condition.getUsername());
+        params.put(teamNameParam, condition.getTeamName());
+        params.put(ageGoeParam, condition.getAgeGoe());
+        params.put(ageLoeParam, condition.getAgeLoe());
+
+        Query query = em.createQuery(template.jpql);
+        for (int i = 0; i < template.constants.size(); i++) {
+            Object constant = template.constants.get(i);
+            query.setParameter(i + 1, constant instanceof ParamExpression ? params.get(constant) : constant);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]));
+        }
+        return result;
+    }
+
+    public QueryTemplateStatsDto stats() {
+        int compiled = 0;
+        for (int i = 0; i < templates.length(); i++) {
+            if (templates.get(i) != null) {
+                compiled++;
+            }
+        }
+        long compileCount = compiles.sum();
+        long averageNanos = compileCount == 0 ? 0 : compileNanos.sum() / compileCount;
+        long hitCount = hits.sum();
+        return new QueryTemplateStatsDto(compiled, hitCount, averageNanos / 1_000, hitCount * averageNanos / 1_000_000);
+    }
+
+    private Template template(int shape) {
+        Template template = templates.get(shape);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        templates.compareAndSet(shape, null, compile(shape));
+        return templates.get(shape);
+    }
+
+    private Template compile(int shape) {
+        long start = System.nanoTime();
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.username.eq(usernameParam) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(teamNameParam) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(ageGoeParam) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(ageLoeParam) : null
+                );
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        Template template = new Template(serializer.toString(), new ArrayList<>(serializer.getConstants()));
+
+        compileNanos.add(System.nanoTime() - start);
+        compiles.increment();
+        return template;
+    }
+
+    private int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private static final class Template {
+        private final String jpql;
+        private final List<Object> constants;
+
+        private Template(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+    }
+}
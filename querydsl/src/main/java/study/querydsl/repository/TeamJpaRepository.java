@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+public class TeamJpaRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+    }
+
+    public void save(Team team) {
+        em.persist(team);
+    }
+
+    /**
+     * 팀만 페이징해서 조회한다.
+     * team.members는 접근하는 시점에 @BatchSize 만큼 in 쿼리로 묶어서 로딩된다.
+     */
+    public List<Team> findPage(long offset, int limit) {
+        return queryFactory
+                .selectFrom(team)
+                .orderBy(team.id.asc())
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * 컬렉션 fetch join + 페이징은 Hibernate가 메모리에서 페이징하므로
+     * 1) 팀 id만 페이징해서 조회하고 2) 해당 id들로 members를 fetch join 한다.
+     */
+    public List<Team> findPageWithMembers(long offset, int limit) {
+        List<Long> teamIds = queryFactory
+                .select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+        if (teamIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return queryFactory
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc())
+                .fetch();
+    }
+}
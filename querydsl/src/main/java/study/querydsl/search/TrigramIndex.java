@@ -0,0 +1,177 @@
+package study.querydsl.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 회원 이름(소문자) 3-gram 역색인. thread-safe 하지 않다. (UsernameIndex 가 동기화한다)
+ *
+ * 이름 앞에 시작 표시 문자를 붙여서 색인하므로 2글자 이상 prefix 도 찾을 수 있다.
+ * gram 마다 회원 id 를 정렬된 long 배열로 들고 있고, 검색은 가장 짧은 목록부터 교집합을 구한 뒤
+ * 실제 이름으로 한 번 더 확인한다. (gram 이 모두 있어도 순서가 다르면 일치하지 않으므로)
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+    private static final char START = '\u0002';
+
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void put(long id, String username) {
+        if (username == null) {
+            remove(id);
+            return;
+        }
+        String name = normalize(username);
+        String old = names.put(id, name);
+        if (name.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            removeGrams(id, old);
+        }
+        addGrams(id, name);
+    }
+
+    void remove(long id) {
+        String old = names.remove(id);
+        if (old != null) {
+            removeGrams(id, old);
+        }
+    }
+
+    /**
+     * text 를 포함하는(prefix 면 text 로 시작하는) 회원 id 오름차순.
+     * 검색어가 너무 짧거나 결과가 limit 을 넘으면 null. (색인으로 좁힐 수 없는 경우)
+     */
+    long[] find(String text, boolean prefix, int limit) {
+        String needle = normalize(text);
+        String padded = prefix ? START + needle : needle;
+        if (padded.length() < GRAM) {
+            return null;
+        }
+
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            Postings list = postings.get(key(padded, i));
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        Postings smallest = lists.get(0);
+        long[] result = new long[Math.min(smallest.size, limit + 1)];
+        int count = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            long id = smallest.ids[i];
+            if (!containsAll(lists, id) || !matches(names.get(id), needle, prefix)) {
+                continue;
+            }
+            if (count == limit) {
+                return null;
+            }
+            result[count++] = id;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    int grams() {
+        return postings.size();
+    }
+
+    private static boolean containsAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String name, String needle, boolean prefix) {
+        return name != null && (prefix ? name.startsWith(needle) : name.contains(needle));
+    }
+
+    private void addGrams(long id, String name) {
+        String padded = START + name;
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            postings.computeIfAbsent(key(padded, i), k -> new Postings()).add(id);
+        }
+    }
+
+    private void removeGrams(long id, String name) {
+        String padded = START + name;
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            Long key = key(padded, i);
+            Postings list = postings.get(key);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static long key(String value, int offset) {
+        return ((long) value.charAt(offset) << 32) | ((long) value.charAt(offset + 1) << 16) | value.charAt(offset + 2);
+    }
+
+    /**
+     * 정렬된 id 목록. id 는 대부분 증가하는 순서로 들어오므로 보통은 뒤에 붙이기만 한다.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                //"aaaa" 처럼 같은 gram 이 여러 번 나오는 이름
+                return;
+            }
+            index = -index - 1;
+            grow();
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+}
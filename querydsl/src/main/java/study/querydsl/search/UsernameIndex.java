@@ -0,0 +1,249 @@
+package study.querydsl.search;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.config.WriterRouting;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameIndexStatsDto;
+import study.querydsl.event.BulkChangeEvent;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.repository.MemberSearchPredicates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * usernameContains / usernameStartsWith 검색 조건을 회원 id 목록으로 바꿔주는 메모리 색인.
+ *
+ * lower(username) like '%x%' 는 인덱스를 탈 수 없어서 member 테이블 전체를 읽는다.
+ * 색인에서 후보 id 를 구하고 쿼리는 member.id in (...) 으로 pk 조회만 하게 한다.
+ *
+ * - 애플리케이션 시작 시 DB에서 다시 만들고, 커밋된 Member 변경 이벤트로 증분 갱신한다.
+ * - 벌크 DML 은 어떤 행이 바뀌었는지 모르므로 백그라운드에서 다시 만든다. 그동안은 SQL like 조건을 그대로 쓴다.
+ * - 검색어가 3글자 미만(prefix 는 2글자 미만)이거나 후보가 max-candidates 를 넘어도 SQL like 조건을 쓴다.
+ */
+@Slf4j
+@Component
+public class UsernameIndex implements DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+    private final int maxCandidates;
+    private final int rebuildChunkSize;
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(VirtualThreads.namedThreadFactory("username-index"));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final Object rebuildLock = new Object();
+
+    private TrigramIndex index = new TrigramIndex();
+    //처음 만들기 전이거나 벌크 DML 이후에는 true. 이때는 색인을 쓰지 않는다.
+    private boolean stale = true;
+    //다시 만드는 동안 들어온 변경. 새 색인에 다시 반영한다.
+    private List<MemberChangedEvent> pending;
+    private boolean bulkChangedWhileRebuilding;
+
+    private long rebuilds;
+    private long lookups;
+    private long fallbacks;
+
+    public UsernameIndex(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                         @Value("${member.username-index.max-candidates:1000}") int maxCandidates,
+                         @Value("${member.username-index.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCandidates = maxCandidates;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * usernameContains, usernameStartsWith 조건. 색인으로 풀 수 있으면 member.id in (...), 아니면 SQL like 조건.
+     */
+    public Predicate usernameMatch(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                match(condition.getUsernameContains(), false),
+                match(condition.getUsernameStartsWith(), true));
+    }
+
+    /**
+     * 조건에 맞는 회원 id 오름차순. 색인으로 판단할 수 없으면 null
+     */
+    public synchronized long[] find(String text, boolean prefix) {
+        if (stale || !hasText(text)) {
+            return null;
+        }
+        return index.find(text, prefix, maxCandidates);
+    }
+
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    public synchronized UsernameIndexStatsDto stats() {
+        return new UsernameIndexStatsDto(!stale, index.size(), index.grams(), maxCandidates,
+                rebuilds, lookups, fallbacks);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    @EventListener
+    public synchronized void onMemberChanged(MemberChangedEvent event) {
+        if (!stale) {
+            apply(index, event);
+        }
+        if (pending != null) {
+            pending.add(event);
+        }
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (!"member".equals(event.getTable())) {
+            return;
+        }
+        synchronized (this) {
+            stale = true;
+            if (pending != null) {
+                bulkChangedWhileRebuilding = true;
+            }
+        }
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("username index rebuild failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //종료 중
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * DB에서 색인을 다시 만든다. 만드는 동안에도 이전 색인(stale 이 아니면)으로 검색한다.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+                bulkChangedWhileRebuilding = false;
+            }
+            long start = System.nanoTime();
+            TrigramIndex rebuilt;
+            try {
+                rebuilt = WriterRouting.call(() -> readOnlyTx.execute(status -> load()));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (MemberChangedEvent event : pending) {
+                    apply(rebuilt, event);
+                }
+                pending = null;
+                index = rebuilt;
+                stale = bulkChangedWhileRebuilding;
+                rebuilds++;
+            }
+            log.info("username index rebuilt. members={}, grams={}, elapsed={}ms",
+                    rebuilt.size(), rebuilt.grams(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private Predicate match(String text, boolean prefix) {
+        if (!hasText(text)) {
+            return null;
+        }
+        long[] ids = find(text, prefix);
+        synchronized (this) {
+            if (ids == null) {
+                fallbacks++;
+            } else {
+                lookups++;
+            }
+        }
+        if (ids == null) {
+            return prefix ? MemberSearchPredicates.usernameStartsWith(text) : MemberSearchPredicates.usernameContains(text);
+        }
+        List<Long> memberIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            memberIds.add(id);
+        }
+        //빈 목록이면 Querydsl이 1 = 2 로 만든다.
+        return member.id.in(memberIds);
+    }
+
+    //pk 순으로 chunk 씩 읽는다. 회원 전체를 한 번에 List 로 들고 있지 않는다.
+    private TrigramIndex load() {
+        TrigramIndex result = new TrigramIndex();
+        Long lastId = null;
+        while (true) {
+            List<Tuple> rows = queryFactory
+                    .select(member.id, member.username)
+                    .from(member)
+                    .where(lastId == null ? null : member.id.gt(lastId))
+                    .orderBy(member.id.asc())
+                    .limit(rebuildChunkSize)
+                    .fetch();
+            for (Tuple row : rows) {
+                result.put(row.get(member.id), row.get(member.username));
+            }
+            if (rows.size() < rebuildChunkSize) {
+                return result;
+            }
+            lastId = rows.get(rows.size() - 1).get(member.id);
+        }
+    }
+
+    private static void apply(TrigramIndex target, MemberChangedEvent event) {
+        if (event.getMemberId() == null) {
+            return;
+        }
+        if (event.getType() == ChangeType.DELETE) {
+            target.remove(event.getMemberId());
+        } else {
+            target.put(event.getMemberId(), event.getUsername());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package study.querydsl.seed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * 대량 초기 데이터 적재.
+ *
+ * - id는 시퀀스(allocationSize=50)로 미리 할당받기 때문에 insert 마다 시퀀스를 조회하지 않는다.
+ * - hibernate.jdbc.batch_size, order_inserts 설정으로 insert가 JDBC batch로 묶인다.
+ * - flushSize 마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - chunkSize 단위로 트랜잭션을 나누고, threads > 1 이면 chunk를 병렬로 저장한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final SeedProperties seedProperties;
+    private final Validator validator;
+
+    public long load() {
+        return load(seedProperties);
+    }
+
+    public long load(SeedProperties properties) {
+        return load(properties, loaded -> {
+        });
+    }
+
+    /**
+     * chunk 트랜잭션이 커밋될 때마다 그 chunk 의 회원 수로 progress 를 호출한다. threads > 1 이면 여러 스레드에서 호출된다.
+     * chunkSize, flushSize, threads 가 0 이하이면 ConstraintViolationException (chunk 루프가 끝나지 않거나 % 0 이 된다)
+     */
+    public long load(SeedProperties properties, LongConsumer progress) {
+        Set<ConstraintViolation<SeedProperties>> violations = validator.validate(properties);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<Long> teamIds = transactionTemplate.execute(status -> persistTeams(properties));
+
+        List<int[]> chunks = new ArrayList<>();
+        for (int from = 0; from < properties.getMembers(); from += properties.getChunkSize()) {
+            chunks.add(new int[]{from, Math.min(from + properties.getChunkSize(), properties.getMembers())});
+        }
+
+        if (properties.getThreads() <= 1 || chunks.size() <= 1) {
+            for (int[] chunk : chunks) {
+                transactionTemplate.executeWithoutResult(status ->
+                        persistMembers(properties, teamIds, chunk[0], chunk[1]));
+                progress.accept(chunk[1] - chunk[0]);
+            }
+        } else {
+            loadParallel(properties, transactionTemplate, teamIds, chunks, progress);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("seed loaded: teams={}, members={}, threads={}, elapsed={}ms ({} rows/s)",
+                teamIds.size(), properties.getMembers(), properties.getThreads(), elapsedMillis,
+                elapsedMillis == 0 ? properties.getMembers() : properties.getMembers() * 1000L / elapsedMillis);
+        return properties.getMembers();
+    }
+
+    private void loadParallel(SeedProperties properties, TransactionTemplate transactionTemplate,
+                              List<Long> teamIds, List<int[]> chunks, LongConsumer progress) {
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int[] chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    transactionTemplate.executeWithoutResult(status ->
+                            persistMembers(properties, teamIds, chunk[0], chunk[1]));
+                    progress.accept(chunk[1] - chunk[0]);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("seed 적재가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("seed 적재에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> persistTeams(SeedProperties properties) {
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < properties.getTeams(); i++) {
+            Team team = new Team(teamName(properties, i));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    private void persistMembers(SeedProperties properties, List<Long> teamIds, int from, int to) {
+        //chunk 별로 시드를 고정해서 병렬로 돌려도 같은 데이터가 나오게 한다.
+        Random random = new Random(properties.getRandomSeed() + from);
+        //대량 insert가 2차 캐시를 채우지 않도록 한다.
+        em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        double[] teamWeights = cumulativeTeamWeights(properties, teamIds.size());
+        for (int i = from; i < to; i++) {
+            Member member = new Member(properties.getMemberNamePrefix() + i, age(properties, random, i));
+            if (!teamIds.isEmpty()) {
+                //changeTeam()은 team.members 컬렉션을 초기화하므로 연관관계 주인 쪽만 세팅한다.
+                member.setTeam(em.getReference(Team.class, teamIds.get(teamIndex(random, i, teamIds.size(), teamWeights))));
+            }
+            em.persist(member);
+            if ((i - from + 1) % properties.getFlushSize() == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private String teamName(SeedProperties properties, int index) {
+        return index < 26
+                ? properties.getTeamNamePrefix() + (char) ('A' + index)
+                : properties.getTeamNamePrefix() + index;
+    }
+
+    private int age(SeedProperties properties, Random random, int index) {
+        int min = properties.getMinAge();
+        int range = properties.getMaxAge() - min + 1;
+        switch (properties.getAgeDistribution()) {
+            case UNIFORM:
+                return min + random.nextInt(range);
+            case NORMAL:
+                double mean = (properties.getMinAge() + properties.getMaxAge()) / 2.0;
+                int age = (int) Math.round(mean + random.nextGaussian() * range / 6.0);
+                return Math.max(properties.getMinAge(), Math.min(properties.getMaxAge(), age));
+            default:
+                return min + index % range;
+        }
+    }
+
+    private int teamIndex(Random random, int index, int teamCount, double[] cumulativeWeights) {
+        if (cumulativeWeights == null) {
+            return index % teamCount;
+        }
+        double u = random.nextDouble() * cumulativeWeights[teamCount - 1];
+        int found = Arrays.binarySearch(cumulativeWeights, u);
+        return Math.min(found >= 0 ? found + 1 : -found - 1, teamCount - 1);
+    }
+
+    //SKEWED: 팀 k가 뽑힐 확률이 1/(k+1)에 비례 (zipf)
+    private double[] cumulativeTeamWeights(SeedProperties properties, int teamCount) {
+        if (properties.getTeamDistribution() != SeedProperties.TeamDistribution.SKEWED) {
+            return null;
+        }
+        double[] cumulative = new double[teamCount];
+        double sum = 0;
+        for (int k = 0; k < teamCount; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+        return cumulative;
+    }
+}
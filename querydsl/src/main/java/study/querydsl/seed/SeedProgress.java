@@ -0,0 +1,23 @@
+package study.querydsl.seed;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class SeedProgress {
+    private final SeedStatus status;
+    private final long members;
+    //커밋된 회원 수
+    private final long loadedMembers;
+    private final long elapsedMillis;
+    private final String error;
+
+    public SeedProgress(SeedStatus status, long members, long loadedMembers, long elapsedMillis, String error) {
+        this.status = status;
+        this.members = members;
+        this.loadedMembers = loadedMembers;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * 초기 데이터 생성 설정.
+ * 기본값은 기존 InitMember와 같은 데이터(팀 2개, 회원 100명, age = i, 팀은 번갈아 배정)를 만든다.
+ * 코드에서 만들어 넘기는 경우는 바인딩 검증을 거치지 않으므로 MemberBulkLoader 가 한 번 더 검증한다.
+ */
+@Getter @Setter
+@Validated
+@ConfigurationProperties(prefix = "seed")
+public class SeedProperties {
+
+    @PositiveOrZero
+    private int teams = 2;
+    @PositiveOrZero
+    private int members = 100;
+    private String teamNamePrefix = "tema";
+    private String memberNamePrefix = "member";
+
+    //한 트랜잭션에서 저장할 회원 수
+    @Positive
+    private int chunkSize = 10_000;
+    //flush/clear 주기. hibernate.jdbc.batch_size와 맞추는게 좋다.
+    @Positive
+    private int flushSize = 100;
+    //1보다 크면 chunk 단위로 병렬 저장한다.
+    @Positive
+    private int threads = 1;
+    //true 면 애플리케이션이 준비된 뒤 백그라운드에서 적재한다. (요청은 적재 중에도 받는다)
+    private boolean async = true;
+    //async 적재가 끝날 때까지 readiness 를 REFUSING_TRAFFIC 으로 둔다.
+    private boolean holdReadiness = false;
+
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private int minAge = 0;
+    private int maxAge = 99;
+    private TeamDistribution teamDistribution = TeamDistribution.ROUND_ROBIN;
+    private long randomSeed = 42L;
+
+    @AssertTrue(message = "minAge 는 maxAge 보다 클 수 없습니다.")
+    public boolean isAgeRangeValid() {
+        return minAge <= maxAge;
+    }
+
+    public enum AgeDistribution {
+        //minAge + i % (maxAge - minAge + 1)
+        SEQUENTIAL,
+        UNIFORM,
+        //(minAge + maxAge) / 2 를 중심으로 하는 정규분포
+        NORMAL
+    }
+
+    public enum TeamDistribution {
+        ROUND_ROBIN,
+        //앞쪽 팀일수록 회원이 많은 zipf 분포
+        SKEWED
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.seed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.VirtualThreads;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 초기 데이터를 백그라운드 스레드에서 chunk 트랜잭션 단위로 적재하고 진행 상황을 보여준다.
+ *
+ * - 적재 중에도 애플리케이션은 요청을 받는다. 커밋된 chunk 까지만 조회된다.
+ * - seed.hold-readiness=true 면 적재가 끝날 때까지 readiness 를 REFUSING_TRAFFIC 으로 두고, 끝나면 ACCEPTING_TRAFFIC 을 발행한다.
+ * 한 번에 하나만 실행한다.
+ */
+@Slf4j
+@Component
+public class SeedRunner implements DisposableBean {
+
+    private final MemberBulkLoader memberBulkLoader;
+    private final SeedProperties seedProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(VirtualThreads.namedThreadFactory("seed"));
+    private final AtomicLong loadedMembers = new AtomicLong();
+
+    private volatile SeedStatus status = SeedStatus.PENDING;
+    private volatile long members;
+    private volatile long startNanos;
+    private volatile long elapsedMillis;
+    private volatile String error;
+    private volatile boolean holdReadiness;
+
+    public SeedRunner(MemberBulkLoader memberBulkLoader, SeedProperties seedProperties,
+                      ApplicationEventPublisher eventPublisher) {
+        this.memberBulkLoader = memberBulkLoader;
+        this.seedProperties = seedProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CompletableFuture<SeedProgress> start() {
+        return start(seedProperties);
+    }
+
+    /**
+     * 백그라운드에서 적재를 시작한다. 이미 실행 중이면 IllegalStateException
+     */
+    public synchronized CompletableFuture<SeedProgress> start(SeedProperties properties) {
+        begin(properties);
+        holdReadiness = properties.isHoldReadiness();
+        if (holdReadiness) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+        return CompletableFuture.supplyAsync(() -> execute(properties), executor);
+    }
+
+    /**
+     * 현재 스레드에서 적재한다. (seed.async=false)
+     */
+    public SeedProgress run(SeedProperties properties) {
+        synchronized (this) {
+            begin(properties);
+            holdReadiness = false;
+        }
+        return execute(properties);
+    }
+
+    public SeedProgress progress() {
+        long elapsed = status == SeedStatus.RUNNING ? (System.nanoTime() - startNanos) / 1_000_000 : elapsedMillis;
+        return new SeedProgress(status, members, loadedMembers.get(), elapsed, error);
+    }
+
+    /**
+     * 적재 중에 스프링 부트가 ACCEPTING_TRAFFIC 을 발행하면 (ApplicationReadyEvent 직후) 다시 막는다.
+     */
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && event.getSource() != this
+                && holdReadiness && status == SeedStatus.RUNNING) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void begin(SeedProperties properties) {
+        if (status == SeedStatus.RUNNING) {
+            throw new IllegalStateException("seed 적재가 이미 실행 중입니다.");
+        }
+        status = SeedStatus.RUNNING;
+        members = properties.getMembers();
+        loadedMembers.set(0);
+        error = null;
+        startNanos = System.nanoTime();
+    }
+
+    private SeedProgress execute(SeedProperties properties) {
+        try {
+            memberBulkLoader.load(properties, loadedMembers::addAndGet);
+            finish(SeedStatus.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("seed 적재 실패", e);
+            finish(SeedStatus.FAILED, e.toString());
+        }
+        return progress();
+    }
+
+    private void finish(SeedStatus result, String message) {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        error = message;
+        status = result;
+        if (holdReadiness) {
+            holdReadiness = false;
+            //실패해도 열어둔다. 데이터가 일부만 있는 상태는 progress 로 확인한다.
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+}
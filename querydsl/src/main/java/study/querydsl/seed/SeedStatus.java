@@ -0,0 +1,5 @@
+package study.querydsl.seed;
+
+public enum SeedStatus {
+    PENDING, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,92 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.columnar.MemberColumnarSnapshot;
+import study.querydsl.dto.AgeStatsDto;
+import study.querydsl.dto.AgeStatsSource;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchPredicates.searchWhere;
+
+/**
+ * 회원 나이 집계 (count / sum / avg / min / max).
+ * 컬럼 스냅샷을 쓸 수 있으면 메모리에서 계산하고, 꺼져 있거나 stale 이면 Querydsl group by 로 조회한다.
+ */
+@Service
+public class MemberAnalyticsService {
+
+    private final MemberColumnarSnapshot snapshot;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+
+    public MemberAnalyticsService(MemberColumnarSnapshot snapshot, JPAQueryFactory queryFactory,
+                                  PlatformTransactionManager transactionManager) {
+        this.snapshot = snapshot;
+        this.queryFactory = queryFactory;
+        //스냅샷으로 처리되는 경우에는 커넥션을 잡지 않도록 DB 조회할 때만 트랜잭션을 연다.
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public AgeStatsDto ageStats(MemberSearchCondition condition) {
+        AgeStatsDto result = snapshot.ageStats(condition);
+        return result != null ? result : readOnlyTx.execute(status -> ageStatsFromDatabase(condition));
+    }
+
+    public List<AgeStatsDto> ageStatsByTeam(MemberSearchCondition condition) {
+        List<AgeStatsDto> result = snapshot.ageStatsByTeam(condition);
+        return result != null ? result : readOnlyTx.execute(status -> ageStatsByTeamFromDatabase(condition));
+    }
+
+    AgeStatsDto ageStatsFromDatabase(MemberSearchCondition condition) {
+        Tuple row = queryFactory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchWhere(condition))
+                .fetchOne();
+        return toDto(null, row);
+    }
+
+    List<AgeStatsDto> ageStatsByTeamFromDatabase(MemberSearchCondition condition) {
+        List<Tuple> rows = queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(searchWhere(condition))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+        List<AgeStatsDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            result.add(toDto(row.get(team.name), row));
+        }
+        return result;
+    }
+
+    //집계 컬럼은 뒤에서 5개. sum 은 Hibernate 가 Long 으로 돌려주므로 Number 로 받는다.
+    private static AgeStatsDto toDto(String teamName, Tuple row) {
+        int offset = row.size() - 5;
+        Number count = row.get(offset, Number.class);
+        Number sum = row.get(offset + 1, Number.class);
+        Number avg = row.get(offset + 2, Number.class);
+        Number min = row.get(offset + 3, Number.class);
+        Number max = row.get(offset + 4, Number.class);
+        return new AgeStatsDto(teamName,
+                count == null ? 0 : count.longValue(),
+                sum == null ? 0 : sum.longValue(),
+                avg == null ? null : avg.doubleValue(),
+                min == null ? null : min.intValue(),
+                max == null ? null : max.intValue(),
+                AgeStatsSource.DATABASE);
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.async.AsyncQueryExecutor;
+import study.querydsl.async.BulkheadFullException;
+import study.querydsl.dto.MemberPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TotalCountSource;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.stats.TeamStatisticsStore;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * offset 페이징 검색.
+ *
+ * count 쿼리는 content 쿼리와 동시에 다른 커넥션(AsyncQueryExecutor)에서 실행하고,
+ * 조회된 페이지로 전체 건수를 알 수 있으면(첫 페이지가 덜 찼거나 마지막 페이지) 기다리지 않고 버린다.
+ * approximate 요청이면 username 조건이 없는 경우 팀 통계의 나이 분포로 건수를 계산한다.
+ */
+@Slf4j
+@Service
+public class MemberSearchService {
+
+    static final String COUNT_BULKHEAD = "v3-members-count";
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final TeamStatisticsStore teamStatisticsStore;
+    //근사값이 이 값 이상일 때만 근사값을 쓴다. 작으면 정확한 count도 충분히 싸다.
+    private final long approximateCountThreshold;
+
+    public MemberSearchService(MemberJpaRepository memberJpaRepository,
+                               AsyncQueryExecutor asyncQueryExecutor,
+                               TeamStatisticsStore teamStatisticsStore,
+                               @Value("${member.page-search.approximate-count-threshold:100000}") long approximateCountThreshold) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.teamStatisticsStore = teamStatisticsStore;
+        this.approximateCountThreshold = approximateCountThreshold;
+    }
+
+    public MemberPage searchPage(MemberSearchCondition condition, Pageable pageable, boolean approximate) {
+        Long approximateCount = approximate ? approximateCount(condition) : null;
+
+        //트랜잭션 안이면 다른 커넥션에서는 커밋되지 않은 변경이 보이지 않으므로 같은 트랜잭션에서 센다.
+        CompletableFuture<Long> countFuture = approximateCount == null
+                && !TransactionSynchronizationManager.isActualTransactionActive()
+                ? asyncQueryExecutor.submit(COUNT_BULKHEAD, () -> memberJpaRepository.count(condition))
+                : null;
+
+        List<MemberTeamDto> content;
+        try {
+            content = memberJpaRepository.searchPageContent(condition, pageable);
+        } catch (RuntimeException e) {
+            cancel(countFuture);
+            throw e;
+        }
+
+        Long pageTotal = totalFromPage(content, pageable);
+        if (pageTotal != null) {
+            cancel(countFuture);
+            return page(content, pageable, pageTotal, TotalCountSource.PAGE);
+        }
+        if (approximateCount != null) {
+            return page(content, pageable, approximateCount, TotalCountSource.APPROXIMATE);
+        }
+        if (countFuture == null) {
+            return page(content, pageable, memberJpaRepository.count(condition), TotalCountSource.SEQUENTIAL);
+        }
+        try {
+            return page(content, pageable, countFuture.get(), TotalCountSource.PARALLEL);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BulkheadFullException) {
+                log.debug("count bulkhead full. counting on caller thread");
+                return page(content, pageable, memberJpaRepository.count(condition), TotalCountSource.SEQUENTIAL);
+            }
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause() : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("count 조회가 중단되었습니다.", e);
+        }
+    }
+
+    //PageableExecutionUtils.getPage 와 같은 규칙
+    private static Long totalFromPage(List<MemberTeamDto> content, Pageable pageable) {
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+            return (long) content.size();
+        }
+        if (!content.isEmpty() && content.size() < pageable.getPageSize()) {
+            return pageable.getOffset() + content.size();
+        }
+        return null;
+    }
+
+    private Long approximateCount(MemberSearchCondition condition) {
+        if (hasText(condition.getUsername()) || hasText(condition.getUsernameContains())
+                || hasText(condition.getUsernameStartsWith())) {
+            return null;
+        }
+        //통계가 stale 이면 null. 정확한 count 쿼리로 간다.
+        Long count = teamStatisticsStore.countMembers(
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(), condition.getAgeLoe());
+        return count != null && count >= approximateCountThreshold ? count : null;
+    }
+
+    private static void cancel(CompletableFuture<Long> countFuture) {
+        if (countFuture != null) {
+            //이미 실행 중인 쿼리는 query timeout 으로 정리된다.
+            countFuture.cancel(false);
+        }
+    }
+
+    private static MemberPage page(List<MemberTeamDto> content, Pageable pageable, long total, TotalCountSource source) {
+        return new MemberPage(content, pageable.getPageNumber(), pageable.getPageSize(), total, source);
+    }
+}
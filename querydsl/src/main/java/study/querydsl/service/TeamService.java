@@ -0,0 +1,31 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamFetchStrategy;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamJpaRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TeamService {
+
+    private final TeamJpaRepository teamJpaRepository;
+
+    //어느 전략이든 팀 페이지 하나당 쿼리 2번으로 끝난다.
+    public List<TeamMembersDto> findTeamsWithMembers(int page, int size, TeamFetchStrategy strategy) {
+        long offset = (long) page * size;
+        List<Team> teams = strategy == TeamFetchStrategy.FETCH_JOIN
+                ? teamJpaRepository.findPageWithMembers(offset, size)
+                : teamJpaRepository.findPage(offset, size);
+        return teams.stream()
+                .map(TeamMembersDto::new)
+                .collect(Collectors.toList());
+    }
+}
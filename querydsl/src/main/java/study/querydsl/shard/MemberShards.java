@@ -0,0 +1,123 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 샤드별 DataSource / EntityManagerFactory.
+ *
+ * 팀과 그 팀의 회원은 같은 샤드에 둔다. (member - team join을 샤드 안에서 끝내기 위해)
+ * 샤드 키로 team_id 가 아니라 팀 이름의 해시를 쓴다.
+ * - team_id 는 샤드마다 따로 채번되므로 저장하기 전에는 샤드를 정할 수 없다.
+ * - 검색 조건(MemberSearchCondition)에 오는 것은 teamName 이라서, teamName 조건이 있는 검색은 샤드 하나로만 보내면 된다.
+ * 그 대신 팀 이름이 바뀌면 다른 샤드로 옮겨야 하고, 샤드 수를 바꾸면 재배치가 필요하다.
+ * 기본 DataSource/EntityManagerFactory 빈을 대체하지 않도록 빈으로 등록하지 않고 여기서 직접 관리한다.
+ */
+@Slf4j
+@Component
+public class MemberShards implements DisposableBean {
+
+    private final List<LocalContainerEntityManagerFactoryBean> factories = new ArrayList<>();
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<EntityManagerFactory> shards;
+
+    public MemberShards(ShardProperties properties) {
+        List<EntityManagerFactory> list = new ArrayList<>();
+        for (int i = 0; i < properties.getUrls().size(); i++) {
+            list.add(createShard(i, properties.getUrls().get(i), properties));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        if (!shards.isEmpty()) {
+            log.info("member shards: {}", properties.getUrls());
+        }
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public int shardForTeam(String teamName) {
+        return Math.floorMod(teamName.hashCode(), shards.size());
+    }
+
+    public <T> T inTransaction(int shard, Function<EntityManager, T> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    public <T> T read(int shard, Function<EntityManager, T> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        factories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    private EntityManagerFactory createShard(int index, String url, ShardProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        dataSource.setPoolName("shard-" + index);
+        dataSources.add(dataSource);
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put(AvailableSettings.HBM2DDL_AUTO, properties.getDdlAuto());
+        jpaProperties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+        jpaProperties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+        //shard 마다 id가 겹치므로 메인 EntityManagerFactory의 2차 캐시 region을 같이 쓰면 안 된다.
+        jpaProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+        jpaProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setPersistenceUnitName("shard-" + index);
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Member.class.getPackage().getName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(jpaProperties);
+        factory.afterPropertiesSet();
+        factories.add(factory);
+        return factory.getObject();
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "shard")
+public class ShardProperties {
+
+    //비어있으면 샤딩 검색을 사용하지 않는다. 예) jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1
+    private List<String> urls = new ArrayList<>();
+    private String username = "sa";
+    private String password = "";
+    private String ddlAuto = "create";
+    //동시에 조회하는 샤드 수
+    private int maxConcurrency = 4;
+    private Duration timeout = Duration.ofSeconds(5);
+}
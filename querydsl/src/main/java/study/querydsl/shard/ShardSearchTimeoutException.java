@@ -0,0 +1,16 @@
+package study.querydsl.shard;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class ShardSearchTimeoutException extends RuntimeException {
+
+    public ShardSearchTimeoutException(String message) {
+        super(message);
+    }
+
+    public ShardSearchTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.dto.ShardMemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchPredicates.searchWhere;
+
+/**
+ * 샤드로 나눠진 member 검색.
+ * 각 샤드에서 member_id 순으로 limit 건씩 동시에 조회한 뒤 k-way merge 로 전체 limit 건을 만든다.
+ * member_id는 샤드마다 따로 채번되어 서로 다른 회원이 같은 id 를 가질 수 있다.
+ * 그래서 결과에 shardId 를 붙이고 (memberId, shardId) 순으로 정렬하며, 중복도 이 키로 걸러낸다.
+ *
+ * shard.urls 가 없거나 샤드 조회가 실패하면 ShardUnavailableException(503),
+ * 시간이 초과되면 ShardSearchTimeoutException(504)
+ */
+@Component
+public class ShardedMemberSearch implements DisposableBean {
+
+    private final MemberShards memberShards;
+    private final ShardProperties properties;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public ShardedMemberSearch(MemberShards memberShards, ShardProperties properties) {
+        this.memberShards = memberShards;
+        this.properties = properties;
+        this.executor = VirtualThreads.newExecutor("shard-search", properties.getMaxConcurrency());
+        this.permits = new Semaphore(properties.getMaxConcurrency());
+    }
+
+    public List<ShardMemberTeamDto> search(MemberSearchCondition condition, int limit) {
+        if (memberShards.size() == 0) {
+            throw new ShardUnavailableException("shard.urls 가 설정되지 않았습니다.");
+        }
+        List<Integer> targets = new ArrayList<>();
+        if (hasText(condition.getTeamName())) {
+            targets.add(memberShards.shardForTeam(condition.getTeamName()));
+        } else {
+            for (int i = 0; i < memberShards.size(); i++) {
+                targets.add(i);
+            }
+        }
+
+        List<Future<List<ShardMemberTeamDto>>> futures = new ArrayList<>();
+        for (int shard : targets) {
+            futures.add(executor.submit(() -> searchShard(shard, condition, limit)));
+        }
+
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        List<List<ShardMemberTeamDto>> results = new ArrayList<>();
+        try {
+            for (Future<List<ShardMemberTeamDto>> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("샤드 검색이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new ShardUnavailableException("샤드 검색에 실패했습니다.", e.getCause());
+        } catch (TimeoutException e) {
+            throw new ShardSearchTimeoutException("샤드 검색 시간이 초과되었습니다. timeout=" + properties.getTimeout(), e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return merge(results, limit);
+    }
+
+    private List<ShardMemberTeamDto> searchShard(int shard, MemberSearchCondition condition, int limit)
+            throws InterruptedException {
+        permits.acquire();
+        try {
+            List<MemberTeamDto> rows = memberShards.read(shard, em -> new JPAQueryFactory(em)
+                    .select(new MemberTeamDtoProjection(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchWhere(condition))
+                    .orderBy(member.id.asc())
+                    .limit(limit)
+                    .fetch());
+            return rows.stream()
+                    .map(row -> new ShardMemberTeamDto(shard, row))
+                    .collect(Collectors.toList());
+        } finally {
+            permits.release();
+        }
+    }
+
+    //각 리스트는 memberId 오름차순으로 정렬되어 있어야 한다.
+    static List<ShardMemberTeamDto> merge(List<List<ShardMemberTeamDto>> sortedLists, int limit) {
+        Comparator<ShardMemberTeamDto> order = Comparator
+                .comparing(ShardMemberTeamDto::getMemberId)
+                .thenComparingInt(ShardMemberTeamDto::getShardId);
+        //{리스트 번호, 리스트 내 위치}
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator
+                .<int[], ShardMemberTeamDto>comparing(head -> sortedLists.get(head[0]).get(head[1]), order)
+                .thenComparingInt(head -> head[0]));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heap.add(new int[]{i, 0});
+            }
+        }
+
+        List<ShardMemberTeamDto> result = new ArrayList<>(limit);
+        ShardMemberTeamDto last = null;
+        while (!heap.isEmpty() && result.size() < limit) {
+            int[] head = heap.poll();
+            List<ShardMemberTeamDto> list = sortedLists.get(head[0]);
+            ShardMemberTeamDto row = list.get(head[1]);
+            //같은 키는 정렬상 연달아 나온다. (같은 샤드를 두 번 조회한 경우 등)
+            if (last == null || order.compare(last, row) != 0) {
+                result.add(row);
+                last = row;
+            }
+            if (head[1] + 1 < list.size()) {
+                heap.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package study.querydsl.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.IndexAdviceDto;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 실제로 실행된 select 문을 모양(SqlShapes) 단위로 모아두고, H2 EXPLAIN 으로 full scan 여부를 확인한다.
+ *
+ * StatementInspector 단계에서 수집하므로 JPAQueryFactory, JPQL, 지연 로딩 쿼리가 모두 잡힌다.
+ * full scan 테이블에 where 조건이 있으면 동등 조건 컬럼 + 첫 번째 범위 조건 컬럼 순서로 인덱스를 제안한다.
+ * sql.inspection.index-advisor=true 일 때만 수집한다.
+ */
+@Slf4j
+@Component
+public class IndexAdvisor implements SqlStatementListener {
+
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*[\\w\"]+\\.\"?(\\w+)\"?\\.tableScan\\s*\\*/",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_ALIAS = Pattern.compile("(?:from|join)\\s+(\\w+)\\s+(?:as\\s+)?(\\w+)");
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(\\w+)\\.(\\w+)\\s*(=|>=|<=|<>|>|<|\\slike\\s|\\sin\\s|\\sbetween\\s)\\s*\\(?\\?");
+    private static final Pattern WHERE_END = Pattern.compile("\\s(?:group by|order by|having|limit|offset|fetch)\\s");
+
+    private final DataSource dataSource;
+    private final SqlInspectionProperties properties;
+    private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(DataSource dataSource, SqlInspectionProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        if (!properties.isIndexAdvisor()) {
+            return;
+        }
+        String statement = SqlStatements.stripComments(sql);
+        if (!SELECT.matcher(statement).find()) {
+            return;
+        }
+        String shape = SqlShapes.shapeOf(statement);
+        LongAdder executions = shapes.get(shape);
+        if (executions == null) {
+            if (shapes.size() >= properties.getIndexAdvisorMaxShapes()) {
+                return;
+            }
+            executions = shapes.computeIfAbsent(shape, key -> new LongAdder());
+        }
+        executions.increment();
+    }
+
+    public List<IndexAdviceDto> advise(boolean fullScanOnly) {
+        List<IndexAdviceDto> result = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"H2".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                throw new IllegalStateException("H2 에서만 지원합니다: " + connection.getMetaData().getDatabaseProductName());
+            }
+            for (Map.Entry<String, LongAdder> entry : shapes.entrySet()) {
+                IndexAdviceDto advice = advise(connection, entry.getKey(), entry.getValue().sum());
+                if (!fullScanOnly || advice.isFullScan()) {
+                    result.add(advice);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("실행 계획 조회에 실패했습니다.", e);
+        }
+        result.sort((a, b) -> Long.compare(b.getExecutions(), a.getExecutions()));
+        return result;
+    }
+
+    public void clear() {
+        shapes.clear();
+    }
+
+    private IndexAdviceDto advise(Connection connection, String shape, long executions) {
+        String plan;
+        try {
+            plan = explain(connection, shape);
+        } catch (SQLException e) {
+            //shape 정규화로 실행할 수 없게 된 문장 (예: 리터럴이 들어가야 하는 위치)
+            log.debug("explain failed: {}", shape, e);
+            return new IndexAdviceDto(shape, executions, null, List.of(), List.of(), "EXPLAIN 실패: " + e.getMessage());
+        }
+
+        Set<String> scanned = new LinkedHashSet<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            scanned.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+
+        Map<String, List<String>> predicates = predicateColumns(shape);
+        List<String> suggestions = new ArrayList<>();
+        String note = null;
+        for (String table : scanned) {
+            List<String> columns = predicates.get(table);
+            if (columns != null && !columns.isEmpty()) {
+                suggestions.add("create index idx_" + table + "_" + String.join("_", columns)
+                        + " on " + table + " (" + String.join(", ", columns) + ")");
+            } else if (!predicates.isEmpty()) {
+                //left outer join 은 조인 순서를 바꿀 수 없어서 바깥 테이블은 인덱스가 있어도 전체를 읽는다.
+                note = table + " 에는 조건이 없고 조인된 테이블에만 조건이 있습니다. outer join 이면 inner join 으로 바꿀 수 있는지 검토하세요.";
+            }
+        }
+        return new IndexAdviceDto(shape, executions, plan, new ArrayList<>(scanned), suggestions, note);
+    }
+
+    private String explain(Connection connection, String shape) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("explain " + shape)) {
+            //H2는 prepare 시점에 계획을 세우므로 파라미터 값은 계획에 영향이 없다.
+            int parameters = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                ps.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * 테이블별 where 조건 컬럼. 동등/in 조건 컬럼 다음에 첫 번째 범위 조건 컬럼을 둔다.
+     */
+    static Map<String, List<String>> predicateColumns(String shape) {
+        String sql = shape.toLowerCase(Locale.ROOT);
+        Map<String, String> aliases = new LinkedHashMap<>();
+        Matcher aliasMatcher = TABLE_ALIAS.matcher(sql);
+        while (aliasMatcher.find()) {
+            aliases.put(aliasMatcher.group(2), aliasMatcher.group(1));
+        }
+
+        int where = sql.indexOf(" where ");
+        if (where < 0) {
+            return Map.of();
+        }
+        String whereClause = sql.substring(where);
+        Matcher end = WHERE_END.matcher(whereClause);
+        if (end.find()) {
+            whereClause = whereClause.substring(0, end.start());
+        }
+
+        Map<String, Set<String>> equalities = new LinkedHashMap<>();
+        Map<String, Set<String>> ranges = new LinkedHashMap<>();
+        Matcher predicate = PREDICATE.matcher(whereClause);
+        while (predicate.find()) {
+            String table = aliases.get(predicate.group(1));
+            if (table == null) {
+                continue;
+            }
+            String operator = predicate.group(3).trim();
+            boolean equality = operator.equals("=") || operator.equals("in");
+            (equality ? equalities : ranges).computeIfAbsent(table, t -> new LinkedHashSet<>()).add(predicate.group(2));
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String table : aliases.values()) {
+            List<String> columns = new ArrayList<>(equalities.getOrDefault(table, Set.of()));
+            for (String range : ranges.getOrDefault(table, Set.of())) {
+                if (!columns.contains(range)) {
+                    columns.add(range);
+                    break;
+                }
+            }
+            if (!columns.isEmpty()) {
+                result.put(table, columns);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "sql.slow-query")
+public class SlowQueryProperties {
+
+    //이 시간 이상 걸린 statement 는 바인딩 값과 함께 로그를 남긴다.
+    private Duration threshold = Duration.ofMillis(200);
+    //느린 쿼리 중 로그를 남길 비율 (0~1)
+    private double sampleRate = 1.0;
+    //초당 최대 로그 수. 느린 쿼리가 몰려도 로그 때문에 더 느려지지 않도록 한다.
+    private int maxLogsPerSecond = 10;
+    //모양(shape)별 통계를 유지할 최대 개수. 넘치면 "other" 로 합친다.
+    private int maxShapes = 1000;
+}
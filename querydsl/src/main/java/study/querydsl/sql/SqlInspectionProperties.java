@@ -0,0 +1,21 @@
+package study.querydsl.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "sql.inspection")
+public class SqlInspectionProperties {
+
+    //같은 모양의 쿼리가 한 요청 안에서 이 횟수 이상 반복되면 N+1로 본다.
+    private int repeatThreshold = 5;
+    //요청(scope) 하나에서 허용하는 SQL 수. 0 이면 제한 없음
+    private int statementBudget = 0;
+    //true 면 N+1 또는 budget 초과 시 StatementBudgetExceededException을 던진다. (테스트용, 직접 연 scope 만. HTTP 요청은 로그만 남긴다)
+    private boolean failOnViolation = false;
+    //true 면 실행된 select 모양을 모아두고 IndexAdvisor 로 실행 계획을 확인할 수 있다. (H2 전용)
+    private boolean indexAdvisor = false;
+    //IndexAdvisor 가 기억하는 select 모양 수
+    private int indexAdvisorMaxShapes = 500;
+}
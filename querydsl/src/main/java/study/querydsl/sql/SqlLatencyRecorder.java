@@ -0,0 +1,143 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.SqlShapeStatsDto;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * p6spy 리스너로 statement 모양(shape)별 지연 시간 히스토그램과 읽은 row 수를 모은다.
+ *
+ * - 같은 SQL 문자열은 shape 계산 결과를 재사용해서 statement 마다 정규식을 돌리지 않는다.
+ * - threshold 이상 걸린 statement 는 바인딩 값과 함께 WARN 로그를 남긴다.
+ *   sampleRate 와 초당 최대 로그 수로 로그 비용을 제한한다.
+ * 모든 SQL을 동기로 찍던 org.hibernate.SQL debug 로그 대신 쓰는 용도다.
+ */
+@Slf4j
+@Component
+public class SqlLatencyRecorder extends JdbcEventListener {
+
+    static final String OTHER = "other";
+    private static final int MAX_CACHED_SQL = 10_000;
+
+    private final SlowQueryProperties properties;
+    private final Map<String, String> shapeCache = new ConcurrentHashMap<>();
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    //초당 로그 수 제한용
+    private final AtomicLong logWindow = new AtomicLong();
+    private final AtomicInteger logsInWindow = new AtomicInteger();
+    private final LongAdder suppressedLogs = new LongAdder();
+
+    public SqlLatencyRecorder(SlowQueryProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        ShapeStats stats = statsOf(sql);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(timeElapsedNanos));
+        if (e != null) {
+            stats.errors.increment();
+        }
+        if (timeElapsedNanos >= properties.getThreshold().toNanos()) {
+            logSlowQuery(statementInformation, timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        if (!hasNext) {
+            return;
+        }
+        String sql = resultSetInformation.getStatementInformation().getSql();
+        if (sql != null) {
+            statsOf(sql).rows.increment();
+        }
+    }
+
+    public List<SqlShapeStatsDto> slowest(int limit, Comparator<SqlShapeStatsDto> order) {
+        List<SqlShapeStatsDto> result = new ArrayList<>(shapes.size());
+        shapes.forEach((shape, stats) -> result.add(stats.toDto(shape)));
+        result.sort(order.reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public long getSuppressedLogs() {
+        return suppressedLogs.sum();
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private ShapeStats statsOf(String sql) {
+        String shape = shapeCache.get(sql);
+        if (shape == null) {
+            shape = SqlShapes.shapeOf(sql);
+            //리터럴이 박힌 SQL이 많으면 캐시가 끝없이 커지므로 상한을 둔다.
+            if (shapeCache.size() < MAX_CACHED_SQL) {
+                shapeCache.put(sql, shape);
+            }
+        }
+        ShapeStats stats = shapes.get(shape);
+        if (stats != null) {
+            return stats;
+        }
+        if (shapes.size() >= properties.getMaxShapes()) {
+            return shapes.computeIfAbsent(OTHER, key -> new ShapeStats());
+        }
+        return shapes.computeIfAbsent(shape, key -> new ShapeStats());
+    }
+
+    private void logSlowQuery(StatementInformation statementInformation, long timeElapsedNanos) {
+        if (properties.getSampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long window = logWindow.get();
+        if (window != second && logWindow.compareAndSet(window, second)) {
+            logsInWindow.set(0);
+        }
+        if (logsInWindow.incrementAndGet() > properties.getMaxLogsPerSecond()) {
+            suppressedLogs.increment();
+            return;
+        }
+        log.warn("slow query {}ms (connection {}): {}",
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                statementInformation.getConnectionInformation().getConnectionId(),
+                statementInformation.getSqlWithValues());
+    }
+
+    private static final class ShapeStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private SqlShapeStatsDto toDto(String shape) {
+            return new SqlShapeStatsDto(shape, latency.getCount(), errors.sum(),
+                    TimeUnit.MICROSECONDS.toMillis(latency.getTotalMicros()),
+                    latency.percentile(50), latency.percentile(95), latency.percentile(99),
+                    latency.getMaxMicros(), rows.sum());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.SqlEndpointStatsDto;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * p6spy 리스너로 실제 JDBC 실행 횟수를 센다.
+ * 지연 로딩으로 나가는 쿼리(member.getTeam().getName())까지 모두 잡히기 때문에 N+1 탐지에 쓴다.
+ *
+ * 집계는 현재 스레드에 열린 SqlStatementScope 단위로 하고,
+ * 닫힐 때 scope 이름(HTTP 요청이면 "GET /v1/members" 같은 endpoint) 별 누적 통계에 반영한다.
+ * scope 는 중첩할 수 있다. 안쪽 scope 에서 나간 쿼리는 바깥 scope 에도 집계되고, 안쪽이 닫히면 바깥 scope 가 다시 현재 scope 가 된다.
+ */
+@Slf4j
+@Component
+public class SqlStatementCounter extends JdbcEventListener {
+
+    private final ThreadLocal<SqlStatementScope> current = new ThreadLocal<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final SqlInspectionProperties properties;
+
+    public SqlStatementCounter(SqlInspectionProperties properties) {
+        this.properties = properties;
+    }
+
+    public SqlStatementScope open(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, this, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        for (SqlStatementScope scope = current.get(); scope != null; scope = scope.getParent()) {
+            scope.record(statementInformation.getSql());
+        }
+    }
+
+    void close(SqlStatementScope scope) {
+        String violation = report(scope);
+        if (violation != null && properties.isFailOnViolation()) {
+            throw new StatementBudgetExceededException(violation);
+        }
+    }
+
+    /**
+     * 예외 없이 통계와 로그만 남기고 닫는다.
+     * 필터처럼 응답이 이미 커밋됐을 수 있는 곳에서 쓴다. (커밋된 뒤에 던지면 클라이언트는 200 을 받고 예외는 로그에만 남는다)
+     */
+    void closeQuietly(SqlStatementScope scope) {
+        report(scope);
+    }
+
+    //위반이 있으면 그 내용을, 없으면 null 을 돌려준다.
+    private String report(SqlStatementScope scope) {
+        if (current.get() == scope) {
+            if (scope.getParent() != null) {
+                current.set(scope.getParent());
+            } else {
+                current.remove();
+            }
+        }
+        EndpointStats stats = endpoints.computeIfAbsent(scope.getName(), key -> new EndpointStats());
+        stats.requests.increment();
+        stats.statements.add(scope.getStatementCount());
+        stats.maxStatements.accumulate(scope.getStatementCount());
+
+        List<String> suspects = scope.nPlusOneSuspects(properties.getRepeatThreshold());
+        boolean overBudget = properties.getStatementBudget() > 0
+                && scope.getStatementCount() > properties.getStatementBudget();
+        if (!suspects.isEmpty()) {
+            stats.nPlusOne.increment();
+            log.warn("N+1 의심 [{}] statements={} repeated={}", scope.getName(), scope.getStatementCount(), suspects);
+        }
+        if (overBudget) {
+            stats.overBudget.increment();
+            log.warn("SQL budget 초과 [{}] statements={} budget={}",
+                    scope.getName(), scope.getStatementCount(), properties.getStatementBudget());
+        }
+        if (!overBudget && suspects.isEmpty()) {
+            return null;
+        }
+        return String.format("[%s] statements=%d budget=%d repeated=%s",
+                scope.getName(), scope.getStatementCount(), properties.getStatementBudget(), suspects);
+    }
+
+    public Map<String, SqlEndpointStatsDto> stats() {
+        Map<String, SqlEndpointStatsDto> result = new TreeMap<>();
+        endpoints.forEach((name, stats) -> result.put(name, new SqlEndpointStatsDto(
+                stats.requests.sum(), stats.statements.sum(), stats.maxStatements.get(),
+                stats.nPlusOne.sum(), stats.overBudget.sum())));
+        return result;
+    }
+
+    private static class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder nPlusOne = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+    }
+}
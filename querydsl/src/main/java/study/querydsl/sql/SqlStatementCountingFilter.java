@@ -0,0 +1,37 @@
+package study.querydsl.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나를 SqlStatementScope 하나로 묶는다.
+ * 비동기로 처리되는 요청(StreamingResponseBody 등)은 다른 스레드에서 쿼리가 나가므로 집계되지 않는다.
+ * 필터가 끝날 때는 응답이 이미 커밋됐을 수 있으므로 fail-on-violation 이어도 예외 없이 로그와 통계만 남긴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlStatementCountingFilter extends OncePerRequestFilter {
+
+    private final SqlStatementCounter sqlStatementCounter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementScope scope = sqlStatementCounter.open(request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            scope.rename(request.getMethod() + " " + (pattern != null ? pattern : "unmatched"));
+            sqlStatementCounter.closeQuietly(scope);
+        }
+    }
+}
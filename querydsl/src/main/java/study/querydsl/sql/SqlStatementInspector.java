@@ -0,0 +1,39 @@
+package study.querydsl.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SessionFactory 단위로 하나만 등록되는 StatementInspector.
+ * 실제 처리는 SqlStatementListener 빈들에게 위임한다.
+ * 리스너들이 EntityManagerFactory에 의존할 수 있으므로 싱글톤 생성이 모두 끝난 뒤에 연결한다.
+ */
+@Component
+public class SqlStatementInspector implements StatementInspector, SmartInitializingSingleton {
+
+    private final ObjectProvider<SqlStatementListener> listenerProvider;
+    private volatile List<SqlStatementListener> listeners = Collections.emptyList();
+
+    public SqlStatementInspector(ObjectProvider<SqlStatementListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+    }
+
+    @Override
+    public String inspect(String sql) {
+        for (SqlStatementListener listener : listeners) {
+            listener.onStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.sql;
+
+/**
+ * Hibernate가 prepare 하는 모든 SQL을 전달받는다.
+ * JPQL 벌크 연산(update/delete)처럼 영속성 컨텍스트를 거치지 않는 쿼리도 여기로는 들어온다.
+ */
+public interface SqlStatementListener {
+
+    void onStatement(String sql);
+}
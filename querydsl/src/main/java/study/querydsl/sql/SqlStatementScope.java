@@ -0,0 +1,64 @@
+package study.querydsl.sql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청(또는 테스트 코드에서 연 구간) 하나 동안 실행된 SQL 집계.
+ * close() 하면 SqlStatementCounter에 결과가 반영되고, 설정에 따라 위반 시 예외가 발생한다.
+ * 열 때 현재 scope 가 있었으면 parent 로 기억해 두었다가 닫을 때 되돌린다.
+ */
+public class SqlStatementScope implements AutoCloseable {
+
+    private String name;
+    private final SqlStatementCounter counter;
+    private final SqlStatementScope parent;
+    private final Map<String, Integer> shapes = new HashMap<>();
+    private int statementCount;
+
+    SqlStatementScope(String name, SqlStatementCounter counter, SqlStatementScope parent) {
+        this.name = name;
+        this.counter = counter;
+        this.parent = parent;
+    }
+
+    void record(String sql) {
+        statementCount++;
+        shapes.merge(SqlShapes.shapeOf(sql), 1, Integer::sum);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    //endpoint 패턴은 핸들러 매핑 이후에 알 수 있어서 요청이 끝날 때 이름을 바꾼다.
+    void rename(String name) {
+        this.name = name;
+    }
+
+    SqlStatementScope getParent() {
+        return parent;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    //threshold 번 이상 반복된 쿼리 모양
+    public List<String> nPlusOneSuspects(int threshold) {
+        List<String> suspects = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+            if (entry.getValue() >= threshold) {
+                suspects.add(entry.getKey());
+            }
+        }
+        return suspects;
+    }
+
+    @Override
+    public void close() {
+        counter.close(this);
+    }
+}
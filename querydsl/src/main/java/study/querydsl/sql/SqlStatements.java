@@ -0,0 +1,37 @@
+package study.querydsl.sql;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class SqlStatements {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|truncate\\s+table)\\s+([\\w.\"`]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlStatements() {
+    }
+
+    //use_sql_comments 옵션으로 붙는 /* ... */ 주석 제거
+    public static String stripComments(String sql) {
+        if (sql.indexOf("/*") < 0) {
+            return sql;
+        }
+        return COMMENT.matcher(sql).replaceAll("");
+    }
+
+    /**
+     * DML이면 대상 테이블명(소문자)을, 아니면 null을 반환한다.
+     */
+    public static String writeTarget(String sql) {
+        Matcher matcher = WRITE.matcher(stripComments(sql));
+        if (!matcher.find()) {
+            return null;
+        }
+        String table = matcher.group(1).replace("\"", "").replace("`", "");
+        int dot = table.lastIndexOf('.');
+        return (dot < 0 ? table : table.substring(dot + 1)).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.startup;
+
+import org.springframework.core.metrics.StartupStep;
+
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+
+/**
+ * 엔티티마다 생성된 Q 타입(QMember 등)을 미리 로드/초기화한다.
+ * 처음 쓰는 쿼리에서 일어날 static 초기화(경로 객체 생성)를 시작 시점으로 옮기고, 걸린 시간을 startup step 태그로 남긴다.
+ */
+public final class QueryTypeInitializer {
+
+    public static final String STEP_NAME = "querydsl.q-types.initialize";
+
+    private QueryTypeInitializer() {
+    }
+
+    /**
+     * 초기화한 Q 타입 수. Q 타입이 없는 엔티티는 건너뛴다.
+     */
+    public static int initialize(Metamodel metamodel, StartupStep step) {
+        int count = 0;
+        for (EntityType<?> entity : metamodel.getEntities()) {
+            Class<?> type = entity.getJavaType();
+            String queryType = type.getPackageName() + ".Q" + type.getSimpleName();
+            long start = System.nanoTime();
+            try {
+                Class.forName(queryType, true, type.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            step.tag(queryType, (System.nanoTime() - start) / 1_000 + "us");
+            count++;
+        }
+        return count;
+    }
+}
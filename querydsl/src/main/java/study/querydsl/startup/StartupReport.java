@@ -0,0 +1,164 @@
+package study.querydsl.startup;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.StartupBeanDto;
+import study.querydsl.dto.StartupPhaseDto;
+import study.querydsl.dto.StartupReportDto;
+import study.querydsl.sql.SqlStatements;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 시작 시간이 어디에 쓰였는지 보여준다. (/v1/startup)
+ *
+ * - BufferingApplicationStartup 으로 시작했으면 (QuerydslApplication.main) step 타임라인에서
+ *   context refresh, 빈별 생성 시간, entityManagerFactory(Hibernate 메타모델 + ddl-auto), Q 타입 초기화 시간을 뽑는다.
+ * - ddl-auto 로 나가는 DDL 은 p6spy 리스너로 준비 전까지만 따로 잰다.
+ */
+@Slf4j
+@Component
+public class StartupReport extends JdbcEventListener {
+
+    private static final String REFRESH_STEP = "spring.context.refresh";
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+    private static final Pattern DDL = Pattern.compile("^(create|drop|alter)\\s", Pattern.CASE_INSENSITIVE);
+
+    private final ApplicationStartup applicationStartup;
+    private final LongAdder ddlStatements = new LongAdder();
+    private final LongAdder ddlNanos = new LongAdder();
+    private volatile boolean ready;
+    private volatile Long readyMillis;
+    private volatile Long jvmUptimeAtReadyMillis;
+
+    public StartupReport(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (ready) {
+            return;
+        }
+        String sql = statementInformation.getSql();
+        if (sql != null && DDL.matcher(SqlStatements.stripComments(sql).trim()).find()) {
+            ddlStatements.increment();
+            ddlNanos.add(timeElapsedNanos);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        ready = true;
+        readyMillis = event.getTimeTaken() == null ? null : event.getTimeTaken().toMillis();
+        jvmUptimeAtReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("startup phases: {}", report(0).getPhases().stream()
+                .map(phase -> phase.getName() + "=" + phase.getMillis() + "ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+    public StartupReportDto report(int beanLimit) {
+        List<StartupPhaseDto> phases = new ArrayList<>();
+        if (readyMillis != null && jvmUptimeAtReadyMillis != null) {
+            //JVM 기동, 클래스 로딩 등 SpringApplication.run 이전
+            phases.add(new StartupPhaseDto("jvm-before-run", 1, jvmUptimeAtReadyMillis - readyMillis));
+            phases.add(new StartupPhaseDto("ready", 1, readyMillis));
+        }
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            phases.add(ddlPhase());
+            return new StartupReportDto(false, readyMillis, jvmUptimeAtReadyMillis, phases, List.of(), List.of());
+        }
+
+        List<StartupTimeline.TimelineEvent> events =
+                ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline().getEvents();
+        //부모 step 의 self 시간 = 자기 시간 - 자식 step 시간 합
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null) {
+                childNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+
+        Map<String, long[]> byName = new HashMap<>();
+        List<StartupBeanDto> beans = new ArrayList<>();
+        StartupPhaseDto refresh = null;
+        StartupPhaseDto hibernate = null;
+        StartupPhaseDto queryTypes = null;
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            long nanos = event.getDuration().toNanos();
+            long selfNanos = Math.max(0, nanos - childNanos.getOrDefault(step.getId(), 0L));
+            long[] stats = byName.computeIfAbsent(step.getName(), name -> new long[2]);
+            stats[0]++;
+            stats[1] += selfNanos;
+
+            if (REFRESH_STEP.equals(step.getName())) {
+                refresh = new StartupPhaseDto("context-refresh", 1, millis(nanos));
+            } else if (BEAN_STEP.equals(step.getName())) {
+                String beanName = tag(step, "beanName");
+                beans.add(new StartupBeanDto(beanName, millis(nanos), millis(selfNanos)));
+                if ("entityManagerFactory".equals(beanName)) {
+                    //Hibernate 메타모델 생성 + ddl-auto 실행
+                    hibernate = new StartupPhaseDto("hibernate-bootstrap", 1, millis(nanos));
+                }
+            } else if (QueryTypeInitializer.STEP_NAME.equals(step.getName())) {
+                String count = tag(step, "count");
+                queryTypes = new StartupPhaseDto("querydsl-q-types", count == null ? 0 : Long.parseLong(count), millis(nanos));
+            }
+        }
+        addIfPresent(phases, refresh);
+        addIfPresent(phases, hibernate);
+        phases.add(ddlPhase());
+        addIfPresent(phases, queryTypes);
+
+        List<StartupPhaseDto> steps = byName.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed())
+                .map(entry -> new StartupPhaseDto(entry.getKey(), entry.getValue()[0], millis(entry.getValue()[1])))
+                .collect(Collectors.toList());
+        beans.sort(Comparator.comparingLong(StartupBeanDto::getSelfMillis).reversed());
+        return new StartupReportDto(true, readyMillis, jvmUptimeAtReadyMillis, phases, steps,
+                beans.subList(0, Math.min(beanLimit, beans.size())));
+    }
+
+    private StartupPhaseDto ddlPhase() {
+        return new StartupPhaseDto("ddl-auto", ddlStatements.sum(), millis(ddlNanos.sum()));
+    }
+
+    private static void addIfPresent(List<StartupPhaseDto> phases, StartupPhaseDto phase) {
+        if (phase != null) {
+            phases.add(phase);
+        }
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,394 @@
+package study.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.config.WriterRouting;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.event.BulkChangeEvent;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수 / 나이 합계 / 평균 / 최소 / 최대를 메모리에 유지한다.
+ *
+ * 커밋된 Member/Team 변경 이벤트로 증분 갱신하고, 조회는 팀 수에 비례한다.
+ * 벌크 DML처럼 어떤 행이 바뀌었는지 모르는 경우에는 stale로 표시하고 백그라운드에서 한 번만 다시 집계한다.
+ * 그동안 조회는 마지막 스냅샷을 돌려준다. (처음 만들기 전의 조회만 집계가 끝날 때까지 기다린다)
+ * 다시 집계하는 동안 들어온 변경은 UsernameIndex 처럼 모아뒀다가 새 스냅샷에 다시 반영한다.
+ * 재집계는 팀 x 나이 단위로 group by 해서 가져오므로 회원 행을 전부 읽어오지는 않는다.
+ * 팀이 없는 회원은 null 키에 따로 모은다. 팀 통계(findAll)에는 나오지 않고 전체 회원 수에만 더해진다.
+ */
+@Slf4j
+@Component
+public class TeamStatisticsStore implements DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(VirtualThreads.namedThreadFactory("team-statistics"));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final Object rebuildLock = new Object();
+
+    //null 키 = 팀이 없는 회원
+    private Map<Long, TeamAggregate> teams = new HashMap<>();
+    private boolean loaded;
+    private boolean stale = true;
+    //다시 집계하는 동안 들어온 변경. 새 스냅샷에 다시 반영한다.
+    private List<Object> pending;
+    private boolean bulkChangedWhileRebuilding;
+    private long rebuilds;
+
+    public TeamStatisticsStore(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        //호출한 쪽 트랜잭션의 커밋되지 않은 변경이 집계에 섞이지 않도록 별도 트랜잭션에서 읽는다.
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<TeamStatisticsDto> findAll() {
+        ensureLoaded();
+        synchronized (this) {
+            List<TeamStatisticsDto> result = new ArrayList<>(teams.size());
+            teams.forEach((id, aggregate) -> {
+                if (id != null && aggregate.count > 0) {
+                    result.add(aggregate.toDto(id));
+                }
+            });
+            result.sort((a, b) -> a.getTeamId().compareTo(b.getTeamId()));
+            return result;
+        }
+    }
+
+    public Optional<TeamStatisticsDto> findByTeamId(Long teamId) {
+        if (teamId == null) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        synchronized (this) {
+            TeamAggregate aggregate = teams.get(teamId);
+            return aggregate == null ? Optional.empty() : Optional.of(aggregate.toDto(teamId));
+        }
+    }
+
+    /**
+     * 조건에 맞는 회원 수를 나이 분포로 계산한다. teamName 이 없으면 팀이 없는 회원까지 포함한 전체 합계.
+     * 스냅샷이 아직 없거나 stale 이면 기다리지 않고 null 을 돌려준다. (재집계는 백그라운드에 맡긴다)
+     */
+    public Long countMembers(String teamName, Integer ageGoe, Integer ageLoe) {
+        boolean current;
+        synchronized (this) {
+            current = loaded && !stale;
+        }
+        if (!current) {
+            rebuildAsync();
+            return null;
+        }
+        synchronized (this) {
+            long count = 0;
+            for (TeamAggregate aggregate : teams.values()) {
+                if (teamName == null || teamName.equals(aggregate.name)) {
+                    count += aggregate.count(ageGoe, ageLoe);
+                }
+            }
+            return count;
+        }
+    }
+
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    public synchronized long getRebuilds() {
+        return rebuilds;
+    }
+
+    public void markStale() {
+        synchronized (this) {
+            stale = true;
+            if (pending != null) {
+                bulkChangedWhileRebuilding = true;
+            }
+        }
+        rebuildAsync();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        onChanged(event);
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        onChanged(event);
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        markStale();
+    }
+
+    public void rebuildAsync() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("team statistics rebuild failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //종료 중
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * DB에서 다시 집계한다. 집계하는 동안에도 이전 스냅샷으로 조회한다.
+     */
+    public void rebuild() {
+        boolean applied = true;
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+                bulkChangedWhileRebuilding = false;
+            }
+            Map<Long, TeamAggregate> rebuilt;
+            try {
+                rebuilt = WriterRouting.call(() -> readOnlyTx.execute(status -> load()));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (Object event : pending) {
+                    applied &= apply(rebuilt, event);
+                }
+                pending = null;
+                teams = rebuilt;
+                loaded = true;
+                stale = bulkChangedWhileRebuilding || !applied;
+                rebuilds++;
+            }
+            log.debug("team statistics rebuilt. teams={}", rebuilt.size());
+        }
+        if (!applied) {
+            rebuildAsync();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void onChanged(Object event) {
+        boolean rebuild = false;
+        synchronized (this) {
+            if (!stale && !apply(teams, event)) {
+                stale = true;
+                rebuild = true;
+            }
+            if (pending != null) {
+                pending.add(event);
+            }
+        }
+        if (rebuild) {
+            rebuildAsync();
+        }
+    }
+
+    //처음 만들기 전에만 기다린다. 동시에 들어온 조회는 rebuildLock 에서 기다렸다가 만들어진 스냅샷을 쓴다.
+    private void ensureLoaded() {
+        boolean wasLoaded;
+        boolean wasStale;
+        synchronized (this) {
+            wasLoaded = loaded;
+            wasStale = stale;
+        }
+        if (!wasLoaded) {
+            synchronized (rebuildLock) {
+                if (!isLoaded()) {
+                    rebuild();
+                }
+            }
+        } else if (wasStale) {
+            rebuildAsync();
+        }
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    private Map<Long, TeamAggregate> load() {
+        List<Tuple> rows = queryFactory
+                .select(team.id, team.name, member.age, member.count())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name, member.age)
+                .fetch();
+        List<Tuple> noTeamRows = queryFactory
+                .select(member.age, member.count())
+                .from(member)
+                .where(member.team.isNull())
+                .groupBy(member.age)
+                .fetch();
+        Map<Long, TeamAggregate> result = new HashMap<>();
+        for (Tuple row : noTeamRows) {
+            result.computeIfAbsent(null, id -> new TeamAggregate()).add(row.get(member.age), row.get(member.count()));
+        }
+        for (Tuple row : rows) {
+            TeamAggregate aggregate = result.computeIfAbsent(row.get(team.id), id -> new TeamAggregate());
+            aggregate.name = row.get(team.name);
+            Integer age = row.get(member.age);
+            long count = row.get(member.count());
+            if (age != null && count > 0) {
+                aggregate.add(age, count);
+            }
+        }
+        return result;
+    }
+
+    //반영할 수 없는 변경(모르는 팀, 이전 상태를 모르는 update 등)이면 false. 다시 집계해야 한다.
+    private static boolean apply(Map<Long, TeamAggregate> target, Object event) {
+        if (event instanceof TeamChangedEvent) {
+            TeamChangedEvent teamEvent = (TeamChangedEvent) event;
+            if (teamEvent.getType() == ChangeType.DELETE) {
+                target.remove(teamEvent.getTeamId());
+            } else {
+                target.computeIfAbsent(teamEvent.getTeamId(), id -> new TeamAggregate()).name = teamEvent.getName();
+            }
+            return true;
+        }
+        MemberChangedEvent memberEvent = (MemberChangedEvent) event;
+        if (memberEvent.getType() == ChangeType.INSERT) {
+            return add(target, memberEvent.getTeamId(), memberEvent.getAge());
+        }
+        if (memberEvent.getType() == ChangeType.DELETE) {
+            return remove(target, memberEvent.getTeamId(), memberEvent.getAge());
+        }
+        if (!memberEvent.isOldStateKnown()) {
+            return false;
+        }
+        if (memberEvent.getAge() == memberEvent.getOldAge()
+                && equals(memberEvent.getTeamId(), memberEvent.getOldTeamId())) {
+            return true;
+        }
+        return remove(target, memberEvent.getOldTeamId(), memberEvent.getOldAge())
+                && add(target, memberEvent.getTeamId(), memberEvent.getAge());
+    }
+
+    private static boolean add(Map<Long, TeamAggregate> target, Long teamId, int age) {
+        TeamAggregate aggregate = teamId == null
+                ? target.computeIfAbsent(null, id -> new TeamAggregate())
+                : target.get(teamId);
+        if (aggregate == null) {
+            //모르는 팀. 팀 이벤트보다 먼저 온 경우라 이름을 알 수 없으니 다시 집계한다.
+            return false;
+        }
+        aggregate.add(age, 1);
+        return true;
+    }
+
+    private static boolean remove(Map<Long, TeamAggregate> target, Long teamId, int age) {
+        TeamAggregate aggregate = target.get(teamId);
+        return aggregate != null && aggregate.remove(age);
+    }
+
+    private static boolean equals(Long a, Long b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static final class TeamAggregate {
+        private String name;
+        private long count;
+        private long sum;
+        //나이별 인원. 삭제가 있어도 min/max를 바로 구할 수 있다.
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        private void add(int age, long n) {
+            count += n;
+            sum += age * n;
+            ages.merge(age, n, Long::sum);
+        }
+
+        private boolean remove(int age) {
+            Long n = ages.get(age);
+            if (n == null) {
+                return false;
+            }
+            if (n == 1) {
+                ages.remove(age);
+            } else {
+                ages.put(age, n - 1);
+            }
+            count--;
+            sum -= age;
+            return true;
+        }
+
+        private long count(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe == null && ageLoe == null) {
+                return count;
+            }
+            if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+                return 0;
+            }
+            NavigableMap<Integer, Long> range = ages;
+            if (ageGoe != null) {
+                range = range.tailMap(ageGoe, true);
+            }
+            if (ageLoe != null) {
+                range = range.headMap(ageLoe, true);
+            }
+            long sum = 0;
+            for (long n : range.values()) {
+                sum += n;
+            }
+            return sum;
+        }
+
+        private TeamStatisticsDto toDto(Long teamId) {
+            return new TeamStatisticsDto(teamId, name, count, sum,
+                    ages.isEmpty() ? null : ages.firstKey(),
+                    ages.isEmpty() ? null : ages.lastKey());
+        }
+    }
+}
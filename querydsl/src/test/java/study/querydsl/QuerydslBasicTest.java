@@ -17,8 +17,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
+import study.querydsl.dto.UserDtoProjection;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
@@ -266,6 +270,71 @@ public class QuerydslBasicTest {
         }
     }
 
+    /**
+     * @GenerateProjection 으로 생성된 projection. 리플렉션 없이 생성자/setter 를 직접 호출한다.
+     * QMemberDto 와 달리 DTO가 querydsl에 의존하지 않는다. (어노테이션은 소스에만 남는다)
+     */
+    @Test
+    public void findDtoByGeneratedProjection() {
+        //GIVEN
+        List<MemberDto> result = queryFactory
+                .select(MemberDtoProjection.of(member))
+                .from(member)
+                .where(member.username.in("member1", "member2"))
+                .orderBy(member.username.asc())
+                .fetch();
+        //WHEN
+
+        //THEN
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly("member1", "member2");
+        assertThat(result).extracting(MemberDto::getAge).containsExactly(10, 20);
+    }
+
+    //@MappedFrom("username") 으로 alias 없이 name 에 username 을 넣는다.
+    @Test
+    public void findUserDtoByGeneratedProjection() {
+        QMember memberSub = new QMember("memberSub");
+        //GIVEN
+        List<UserDto> aliased = queryFactory
+                .select(UserDtoProjection.of(member))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        List<UserDto> subQuery = queryFactory
+                .select(new UserDtoProjection(member.username,
+                        JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub)))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        //WHEN
+
+        //THEN
+        assertThat(aliased).extracting(UserDto::getName).containsExactly("member1");
+        assertThat(aliased).extracting(UserDto::getAge).containsExactly(10);
+        assertThat(subQuery).extracting(UserDto::getName).containsExactly("member1");
+        assertThat(subQuery.get(0).getAge()).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    public void findMemberTeamDtoByGeneratedProjection() {
+        //GIVEN
+        em.persist(new Member("memberWithoutTeam", 50));
+        List<MemberTeamDto> result = queryFactory
+                .select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.in("member1", "memberWithoutTeam"))
+                .orderBy(member.username.asc())
+                .fetch();
+        //WHEN
+
+        //THEN
+        assertThat(result).extracting(MemberTeamDto::getTeamName).containsExactly("teamA", null);
+        assertThat(result).extracting(MemberTeamDto::getAge).containsExactly(10, 50);
+    }
+
     @Test
     public void dynamicQuery_BooleanBuilder() {
         //GIVEN
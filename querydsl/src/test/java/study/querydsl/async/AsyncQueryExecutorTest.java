@@ -0,0 +1,130 @@
+package study.querydsl.async;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.BulkheadStatsDto;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AsyncQueryExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    AsyncQueryExecutor asyncQueryExecutor;
+    @Autowired
+    AsyncQueryProperties properties;
+
+    @Test
+    public void queryTimeoutIsPropagatedToSession() throws Exception {
+        Object timeout = asyncQueryExecutor.submit("test-hint", Duration.ofSeconds(2),
+                () -> em.getProperties().get(AsyncQueryExecutor.QUERY_TIMEOUT_HINT))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat((Integer) timeout).isBetween(1, 2000);
+    }
+
+    @Test
+    public void bulkheadRejectsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> running = new ArrayList<>();
+        for (int i = 0; i < properties.getMaxConcurrent(); i++) {
+            running.add(asyncQueryExecutor.submit("test-bulkhead", Duration.ofSeconds(10),
+                    () -> await(release)));
+        }
+
+        CompletableFuture<Boolean> rejected = asyncQueryExecutor.submit("test-bulkhead", () -> true);
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BulkheadFullException.class);
+
+        release.countDown();
+        for (CompletableFuture<Boolean> future : running) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        BulkheadStatsDto stats = stats("test-bulkhead");
+        assertThat(stats.getRejected()).isEqualTo(1);
+        assertThat(stats.getCompleted()).isEqualTo(properties.getMaxConcurrent());
+        assertThat(stats.getActive()).isZero();
+    }
+
+    @Test
+    public void timeout() {
+        CountDownLatch never = new CountDownLatch(1);
+        CompletableFuture<Boolean> future = asyncQueryExecutor.submit("test-timeout", Duration.ofMillis(100),
+                () -> await(never));
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(QueryTimeoutExceededException.class);
+        assertThat(stats("test-timeout").getTimedOut()).isEqualTo(1);
+        never.countDown();
+    }
+
+    @Test
+    public void queryTimeoutCancelsStatement() throws Exception {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<RuntimeException> queryFailure = new AtomicReference<>();
+        CompletableFuture<Object> future = asyncQueryExecutor.submit("test-cancel", Duration.ofSeconds(2), () -> {
+            try {
+                //취소되지 않으면 수 분이 걸리는 쿼리
+                return em.createNativeQuery("select count(*) from system_range(1, 10000000000) where mod(x, 7) = 3")
+                        .getSingleResult();
+            } catch (RuntimeException e) {
+                queryFailure.set(e);
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        });
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(QueryTimeoutExceededException.class);
+        //응답만 끝난 것이 아니라 DB 쪽 statement 도 JDBC query timeout 으로 취소되어야 한다.
+        assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queryFailure.get()).isNotNull();
+        assertThat(isQueryTimeout(queryFailure.get())).isTrue();
+    }
+
+    private static boolean isQueryTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof javax.persistence.QueryTimeoutException
+                    || t instanceof org.hibernate.QueryTimeoutException
+                    || t instanceof java.sql.SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private BulkheadStatsDto stats(String name) {
+        return asyncQueryExecutor.stats().stream()
+                .filter(s -> s.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
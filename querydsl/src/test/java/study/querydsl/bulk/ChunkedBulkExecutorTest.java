@@ -0,0 +1,136 @@
+package study.querydsl.bulk;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.BulkJobStatus;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * chunk 마다 커밋하므로 @Transactional 없이 직접 정리한다. (전용 in-memory DB 라서 테이블을 통째로 지워도 된다)
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:chunked-bulk-test;DB_CLOSE_DELAY=-1")
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("member" + i, i, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            queryFactory.delete(bulkJobCheckpoint).execute();
+        });
+    }
+
+    @Test
+    public void chunkedUpdate() {
+        BulkJobOptions options = new BulkJobOptions();
+        options.setChunkSize(7);
+
+        BulkJobProgress progress = chunkedBulkExecutor.update("age-add", member, member.id, member.age.lt(28),
+                update -> update.set(member.age, member.age.add(1)), options);
+
+        assertThat(progress.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(progress.getProcessedRows()).isEqualTo(28);
+        assertThat(progress.getChunks()).isEqualTo(4);
+
+        List<Integer> ages = tx.execute(status -> queryFactory
+                .select(member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch());
+        for (int i = 0; i < 50; i++) {
+            assertThat(ages.get(i)).isEqualTo(i < 28 ? i + 1 : i);
+        }
+    }
+
+    @Test
+    public void resumeAfterFailure() {
+        BulkJobOptions options = new BulkJobOptions();
+        options.setChunkSize(10);
+        AtomicInteger calls = new AtomicInteger();
+
+        //세 번째 chunk에서 실패
+        assertThatThrownBy(() -> chunkedBulkExecutor.update("age-add-resume", member, member.id, null,
+                update -> {
+                    if (calls.incrementAndGet() == 3) {
+                        throw new IllegalStateException("boom");
+                    }
+                    update.set(member.age, member.age.add(100));
+                }, options))
+                .isInstanceOf(IllegalStateException.class);
+
+        BulkJobCheckpoint failed = tx.execute(status -> em.find(BulkJobCheckpoint.class, "age-add-resume"));
+        assertThat(failed.getStatus()).isEqualTo(BulkJobStatus.FAILED);
+        assertThat(failed.getProcessedRows()).isEqualTo(20);
+
+        BulkJobProgress progress = chunkedBulkExecutor.update("age-add-resume", member, member.id, null,
+                update -> update.set(member.age, member.age.add(100)), options);
+        assertThat(progress.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(progress.getProcessedRows()).isEqualTo(50);
+
+        //모든 행이 정확히 한 번씩만 갱신됐다.
+        Long notUpdated = tx.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.age.lt(100))
+                .fetchOne());
+        assertThat(notUpdated).isZero();
+        Integer maxAge = tx.execute(status -> queryFactory
+                .select(member.age.max())
+                .from(member)
+                .fetchOne());
+        assertThat(maxAge).isEqualTo(149);
+    }
+
+    @Test
+    public void chunkedDelete() {
+        BulkJobOptions options = new BulkJobOptions();
+        options.setChunkSize(15);
+
+        BulkJobProgress progress = chunkedBulkExecutor.delete("delete-old", member, member.id, member.age.goe(10), options);
+
+        assertThat(progress.getProcessedRows()).isEqualTo(40);
+        Long remaining = tx.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        assertThat(remaining).isEqualTo(10);
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberSearchCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        memberSearchCache.invalidateAll();
+    }
+
+    @Test
+    public void hitAndBulkUpdateInvalidation() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setUsername("");
+
+        long misses = memberSearchCache.stats().getMisses();
+        long hits = memberSearchCache.stats().getHits();
+
+        List<MemberTeamDto> first = memberSearchCache.get(condition, memberJpaRepository::search);
+        //빈 username은 null과 같은 키로 취급된다.
+        condition.setUsername(null);
+        List<MemberTeamDto> second = memberSearchCache.get(condition, memberJpaRepository::search);
+
+        assertThat(second).isSameAs(first);
+        assertThat(memberSearchCache.stats().getMisses()).isEqualTo(misses + 1);
+        assertThat(memberSearchCache.stats().getHits()).isEqualTo(hits + 1);
+
+        //벌크 연산은 영속성 컨텍스트를 거치지 않지만 캐시는 무효화되어야 한다.
+        queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute();
+
+        List<MemberTeamDto> third = memberSearchCache.get(condition, memberJpaRepository::search);
+        assertThat(third).isNotSameAs(first);
+        assertThat(third).extracting("age").containsExactlyInAnyOrder(11, 21);
+    }
+}
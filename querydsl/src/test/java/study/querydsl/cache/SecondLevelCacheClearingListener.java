@@ -0,0 +1,20 @@
+package study.querydsl.cache;
+
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 테스트마다 시작 전에 2차 캐시를 비운다.
+ * JCache CacheManager 는 JVM 에 하나라서 테스트 컨텍스트끼리 region 을 같이 쓰는데,
+ * 전용 in-memory DB 를 쓰는 컨텍스트끼리는 같은 id 가 다른 행을 가리킬 수 있다.
+ */
+public class SecondLevelCacheClearingListener extends AbstractTestExecutionListener {
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        testContext.getApplicationContext().getBeanProvider(EntityManagerFactory.class)
+                .ifAvailable(emf -> emf.getCache().evictAll());
+    }
+}
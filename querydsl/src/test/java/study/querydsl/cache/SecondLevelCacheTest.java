@@ -0,0 +1,154 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+
+import javax.cache.CacheManager;
+import javax.cache.expiry.Duration;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 공유하므로 @Transactional 없이 트랜잭션을 나눠서 확인한다.
+ * 커밋/정리가 공유 DB 에 영향을 주지 않도록 전용 in-memory DB 를 쓴다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:second-level-cache-test;DB_CLOSE_DELAY=-1")
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberSearchQueryTemplates memberSearchQueryTemplates;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamAId;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            teamAId = teamA.getId();
+            member1Id = member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void lazyTeamIsServedFromCache() {
+        //첫 조회로 캐시를 채운다.
+        tx.executeWithoutResult(status -> em.find(Member.class, member1Id).getTeam().getName());
+
+        statistics.clear();
+        String teamName = tx.execute(status -> em.find(Member.class, member1Id).getTeam().getName());
+
+        assertThat(teamName).isEqualTo("teamA");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void teamMembersCollectionIsCached() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamAId).getMembers().size());
+
+        statistics.clear();
+        int size = tx.execute(status -> em.find(Team.class, teamAId).getMembers().size());
+        assertThat(size).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        //연관관계 주인(Member.team)이 바뀌면 컬렉션 캐시도 제거된다.
+        tx.executeWithoutResult(status -> {
+            Team teamB = new Team("teamB");
+            em.persist(teamB);
+            em.find(Member.class, member1Id).setTeam(teamB);
+        });
+        statistics.clear();
+        int sizeAfterMove = tx.execute(status -> em.find(Team.class, teamAId).getMembers().size());
+        assertThat(sizeAfterMove).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    //테스트에서도 region 이름이 그대로여야 application.conf 의 region 별 설정이 적용된다.
+    @Test
+    public void regionSettingsFromApplicationConf() {
+        CacheManager cacheManager = ((JCacheRegionFactory) emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(RegionFactory.class)).getCacheManager();
+
+        assertThat(configuration(cacheManager, "study.querydsl.entity.Team").getMaximumSize())
+                .isEqualTo(OptionalLong.of(1000));
+        assertThat(configuration(cacheManager, "study.querydsl.entity.Team.members").getMaximumSize())
+                .isEqualTo(OptionalLong.of(1000));
+
+        CaffeineConfiguration<?, ?> memberConfig = configuration(cacheManager, "study.querydsl.entity.Member");
+        assertThat(memberConfig.getMaximumSize()).isEqualTo(OptionalLong.of(50000));
+        assertThat(memberConfig.getExpiryPolicyFactory().create().getExpiryForAccess())
+                .isEqualTo(new Duration(TimeUnit.MINUTES, 10));
+    }
+
+    //검색 결과는 MemberSearchCache 에서만 캐시한다. 템플릿 조회는 매번 DB 로 간다.
+    @Test
+    public void searchResultIsNotCachedTwice() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        memberSearchQueryTemplates.search(condition);
+
+        statistics.clear();
+        List<MemberTeamDto> result = memberSearchQueryTemplates.search(condition);
+        assertThat(result).extracting("username").containsExactly("member2");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    private static CaffeineConfiguration<?, ?> configuration(CacheManager cacheManager, String region) {
+        assertThat(cacheManager.getCache(region)).as(region).isNotNull();
+        return cacheManager.getCache(region).getConfiguration(CaffeineConfiguration.class);
+    }
+}
@@ -0,0 +1,238 @@
+package study.querydsl.changelog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ChangeRecordDto;
+import study.querydsl.entity.ChangeOutboxDeadLetter;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QChangeOutboxDeadLetter.changeOutboxDeadLetter;
+import static study.querydsl.entity.QChangeOutboxEntry.changeOutboxEntry;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * outbox 는 커밋 여부가 중요하므로 @Transactional 없이 직접 커밋하고 정리한다. (member/team 을 통째로 지우므로 전용 in-memory DB)
+ * 백그라운드 relay 가 끼어들지 않도록 drain-interval 을 길게 두고 drain() 을 직접 호출한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change-log-test;DB_CLOSE_DELAY=-1",
+        "change-log.enabled=true",
+        "change-log.directory=build/change-log-test",
+        "change-log.segment-size=64KB",
+        "change-log.drain-interval=1h"})
+class ChangeLogRelayTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ChangeLogRelay changeLogRelay;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    TransactionTemplate tx;
+    long startOffset;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        //이전 실행에서 남은 로그 뒤부터 확인한다.
+        changeLogRelay.drain();
+        startOffset = changeLogRelay.read(Long.MAX_VALUE, 1).getEndOffset();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        changeLogRelay.drain();
+        tx.executeWithoutResult(status -> queryFactory.delete(changeOutboxDeadLetter).execute());
+    }
+
+    @Test
+    public void entityChanges() throws Exception {
+        Long memberId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Team("teamB"));
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            return member1.getId();
+        });
+        tx.executeWithoutResult(status -> {
+            Team teamB = queryFactory.selectFrom(team).where(team.name.eq("teamB")).fetchOne();
+            em.find(Member.class, memberId).changeTeam(teamB);
+        });
+
+        //커밋 전까지는 다른 트랜잭션에서 보이지 않고, 커밋되면 로그로 옮길 때까지 outbox 에 남는다.
+        assertThat(outboxCount()).isEqualTo(4);
+        assertThat(changeLogRelay.drain()).isEqualTo(4);
+        assertThat(outboxCount()).isZero();
+
+        List<JsonNode> changes = changes();
+        assertThat(changes)
+                .extracting(change -> change.get("entity").asText(), change -> change.get("type").asText())
+                .containsExactlyInAnyOrder(
+                        tuple("team", "INSERT"),
+                        tuple("team", "INSERT"),
+                        tuple("member", "INSERT"),
+                        tuple("member", "UPDATE"));
+
+        JsonNode update = changes.get(3);
+        assertThat(update.get("entityId").asLong()).isEqualTo(memberId);
+        JsonNode data = update.get("data");
+        assertThat(data.get("username").asText()).isEqualTo("member1");
+        assertThat(data.get("teamId").asLong()).isNotEqualTo(data.get("oldTeamId").asLong());
+    }
+
+    @Test
+    public void rolledBackChangesAreNotRecorded() throws Exception {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.flush();
+            queryFactory.update(member).set(member.age, member.age.add(1)).execute();
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxCount()).isZero();
+        changeLogRelay.drain();
+        assertThat(changes()).isEmpty();
+    }
+
+    @Test
+    public void bulkChanges() throws Exception {
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.eq("member1"))
+                .execute());
+        changeLogRelay.drain();
+
+        List<JsonNode> changes = changes();
+        assertThat(changes).hasSize(2);
+        JsonNode bulk = changes.get(1);
+        assertThat(bulk.get("entity").asText()).isEqualTo("member");
+        assertThat(bulk.get("type").asText()).isEqualTo(ChangeOutbox.BULK);
+        assertThat(bulk.get("entityId").isNull()).isTrue();
+        JsonNode data = bulk.get("data");
+        assertThat(data.get("sql").asText().replaceAll("\\s+", " ")).startsWith("update member set");
+        //어떤 조건으로 몇 개가 바뀌었는지 받는 쪽에서 알 수 있어야 한다.
+        assertThat(data.get("sqlWithValues").asText()).doesNotContain("?").contains("'member1'");
+        assertThat(data.get("rowCount").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    public void oversizedRowIsDeadLettered() throws Exception {
+        String huge = "{\"blob\":\"" + "x".repeat(100 * 1024) + "\"}";
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        tx.executeWithoutResult(status -> em.createNativeQuery("insert into change_outbox"
+                        + " (id, entity_type, change_type, entity_id, payload, created_at)"
+                        + " values (next value for change_outbox_seq, 'member', 'UPDATE', 1, ?, current_timestamp)")
+                .setParameter(1, huge)
+                .executeUpdate());
+        tx.executeWithoutResult(status -> em.persist(new Member("member2", 20)));
+
+        //segment(64KB)보다 큰 row 가 있어도 batch 전체가 옮겨진다.
+        assertThat(changeLogRelay.drain()).isEqualTo(3);
+        assertThat(outboxCount()).isZero();
+
+        List<JsonNode> changes = changes();
+        assertThat(changes).hasSize(3);
+        List<JsonNode> markers = new ArrayList<>();
+        for (JsonNode change : changes) {
+            if (change.path("deadLetter").asBoolean()) {
+                markers.add(change);
+            }
+        }
+        assertThat(markers).hasSize(1);
+        JsonNode marker = markers.get(0);
+        assertThat(marker.has("data")).isFalse();
+        assertThat(marker.get("entityId").asLong()).isEqualTo(1);
+
+        ChangeOutboxDeadLetter deadLetter = tx.execute(status ->
+                em.find(ChangeOutboxDeadLetter.class, marker.get("outboxId").asLong()));
+        assertThat(deadLetter.getPayload()).isEqualTo(huge);
+        assertThat(deadLetter.getReason()).startsWith("record larger than segment");
+
+        //다음 drain 에서 다시 시도하지 않는다.
+        assertThat(changeLogRelay.drain()).isZero();
+    }
+
+    @Test
+    public void segments(@TempDir Path directory) throws Exception {
+        //레코드 = 헤더 16 + payload 40 바이트. segment 하나에 4개
+        int segmentSize = 4 * 56 + 10;
+        try (ChangeLog log = ChangeLog.open(directory, segmentSize, 3, FsyncPolicy.ALWAYS, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 20; i++) {
+                assertThat(log.append(List.of(payload(i)))).isEqualTo(i);
+            }
+            assertThat(log.segmentCount()).isEqualTo(3);
+            assertThat(log.startOffset()).isEqualTo(8);
+            assertThat(log.endOffset()).isEqualTo(20);
+
+            //지워진 offset 은 남아 있는 첫 레코드부터
+            assertThat(log.read(0, 100)).extracting(ChangeLogRecord::getOffset).containsExactly(
+                    8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L);
+            //segment 경계를 넘어서 읽는다.
+            List<ChangeLogRecord> records = log.read(10, 3);
+            assertThat(records).extracting(ChangeLogRecord::getOffset).containsExactly(10L, 11L, 12L);
+            assertThat(records.get(2).getPayload()).isEqualTo(payload(12));
+        }
+
+        //쓰다 만 레코드 (마지막 레코드의 payload 가 깨진 경우)
+        try (RandomAccessFile file = new RandomAccessFile(
+                directory.resolve(String.format("%020d.log", 16)).toFile(), "rw")) {
+            file.seek(3 * 56 + 16);
+            file.write('X');
+        }
+
+        try (ChangeLog log = ChangeLog.open(directory, segmentSize, 3, FsyncPolicy.ALWAYS, Duration.ofSeconds(1))) {
+            assertThat(log.endOffset()).isEqualTo(19);
+            assertThat(log.append(List.of(payload(100)))).isEqualTo(19);
+            assertThat(log.read(19, 10)).extracting(ChangeLogRecord::getPayload).containsExactly(payload(100));
+        }
+    }
+
+    private long outboxCount() {
+        return tx.execute(status -> queryFactory.select(changeOutboxEntry.count()).from(changeOutboxEntry).fetchOne());
+    }
+
+    private List<JsonNode> changes() throws Exception {
+        List<JsonNode> result = new ArrayList<>();
+        for (ChangeRecordDto record : changeLogRelay.read(startOffset, 1000).getRecords()) {
+            result.add(objectMapper.readTree(record.getChange()));
+        }
+        return result;
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("record-%033d", i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberResponseFormatTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        //다른 테스트 데이터와 섞이지 않도록 ageGoe=1000 으로 조회한다.
+        em.persist(new Member("member1", 1010, teamA));
+        em.persist(new Member("member2", 1020, teamA));
+        em.persist(new Member("member3", 1030, teamB));
+        em.persist(new Member("member4", 1040));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void serializerMatchesBeanSerializer() throws Exception {
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "member1", 10, 2L, "teamA"),
+                new MemberTeamDto(3L, null, 20, null, null));
+
+        assertThat(objectMapper.writeValueAsString(rows)).isEqualTo(new ObjectMapper().writeValueAsString(rows));
+    }
+
+    @Test
+    public void defaultIsJson() throws Exception {
+        MvcResult result = search(MediaType.ALL_VALUE);
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body).hasSize(4);
+        assertThat(body.findValuesAsText("username")).containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+        assertThat(body.findValues("teamName")).filteredOn(JsonNode::isNull).hasSize(1);
+    }
+
+    @Test
+    public void smileAndCbor() throws Exception {
+        JsonNode json = objectMapper.readTree(search(MediaType.APPLICATION_JSON_VALUE).getResponse().getContentAsByteArray());
+
+        MvcResult smile = search("application/x-jackson-smile");
+        MvcResult cbor = search(MediaType.APPLICATION_CBOR_VALUE);
+
+        assertThat(new ObjectMapper(new SmileFactory()).readTree(smile.getResponse().getContentAsByteArray())).isEqualTo(json);
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor.getResponse().getContentAsByteArray())).isEqualTo(json);
+    }
+
+    @Test
+    public void memberBatch() throws Exception {
+        MvcResult result = search(MemberTeamBatchHttpMessageConverter.MEDIA_TYPE_VALUE);
+
+        assertThat(result.getResponse().getContentType()).isEqualTo(MemberTeamBatchHttpMessageConverter.MEDIA_TYPE_VALUE);
+        List<MemberTeamDto> rows = MemberTeamBatchCodec.decode(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertThat(rows).extracting(MemberTeamDto::getUsername, MemberTeamDto::getAge, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 1010, "teamA"),
+                        tuple("member2", 1020, "teamA"),
+                        tuple("member3", 1030, "teamB"),
+                        tuple("member4", 1040, null));
+        assertThat(rows).filteredOn(row -> row.getTeamId() == null).extracting(MemberTeamDto::getUsername)
+                .containsExactly("member4");
+    }
+
+    //List<MemberTeamDto> 가 아닌 응답은 member-batch 로 줄 수 없다.
+    @Test
+    public void memberBatchOnlyForMemberTeamDtoList() throws Exception {
+        mockMvc.perform(get("/v1/members/age-stats")
+                        .accept(MemberTeamBatchHttpMessageConverter.MEDIA_TYPE_VALUE))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void codecRoundTrip() throws Exception {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        rows.add(new MemberTeamDto(5L, "회원", -1, 100L, "teamA"));
+        rows.add(new MemberTeamDto(3L, "", 0, null, null));
+        rows.add(new MemberTeamDto(Long.MAX_VALUE, null, Integer.MAX_VALUE, -7L, null));
+        rows.add(new MemberTeamDto(Long.MIN_VALUE, "member4", Integer.MIN_VALUE, 100L, "teamA"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberTeamBatchCodec.encode(rows, out);
+        List<MemberTeamDto> decoded = MemberTeamBatchCodec.decode(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(decoded).isEqualTo(rows);
+        assertThat(out.size()).isLessThan(objectMapper.writeValueAsBytes(rows).length);
+    }
+
+    private MvcResult search(String accept) throws Exception {
+        return mockMvc.perform(get("/v1/members")
+                        .param("ageGoe", "1000")
+                        .accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept.equals(MediaType.ALL_VALUE)
+                        ? MediaType.APPLICATION_JSON_VALUE : accept))
+                .andReturn();
+    }
+}
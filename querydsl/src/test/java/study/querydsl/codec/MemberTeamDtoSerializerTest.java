@@ -0,0 +1,63 @@
+package study.querydsl.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemberTeamDtoSerializer 는 필드 이름/순서를 직접 쓴다. MemberTeamDto 에 필드가 추가/변경되면 여기서 실패해야 한다.
+ */
+class MemberTeamDtoSerializerTest {
+
+    private final SimpleModule module = new SimpleModule().addSerializer(new MemberTeamDtoSerializer());
+
+    @Test
+    public void fieldsFollowDto() throws Exception {
+        ObjectMapper beanMapper = new ObjectMapper();
+        BeanDescription description = beanMapper.getSerializationConfig()
+                .introspect(beanMapper.constructType(MemberTeamDto.class));
+        List<String> dtoProperties = new ArrayList<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            dtoProperties.add(property.getName());
+        }
+
+        ObjectMapper serializerMapper = new ObjectMapper().registerModule(module);
+        JsonNode written = serializerMapper.readTree(
+                serializerMapper.writeValueAsBytes(new MemberTeamDto(1L, "member1", 10, 2L, "teamA")));
+        List<String> writtenFields = new ArrayList<>();
+        written.fieldNames().forEachRemaining(writtenFields::add);
+
+        assertThat(writtenFields).containsExactlyElementsOf(dtoProperties);
+    }
+
+    //필드마다 다른 값을 넣어서 getter 가 뒤바뀌어도 드러나게 한다.
+    @Test
+    public void sameBytesAsBeanSerializer() throws Exception {
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "member1", 10, 2L, "teamA"),
+                new MemberTeamDto(3L, null, 20, null, null));
+
+        //ObjectMapper 마다 factory 를 따로 만든다. (factory 는 mapper 하나에 묶인다)
+        List<Supplier<JsonFactory>> factories = List.of(JsonFactory::new, SmileFactory::new, CBORFactory::new);
+        for (Supplier<JsonFactory> factory : factories) {
+            ObjectMapper beanMapper = new ObjectMapper(factory.get());
+            ObjectMapper serializerMapper = new ObjectMapper(factory.get()).registerModule(module);
+            assertThat(serializerMapper.writeValueAsBytes(rows))
+                    .as(beanMapper.getFactory().getFormatName())
+                    .isEqualTo(beanMapper.writeValueAsBytes(rows));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package study.querydsl.columnar;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.AgeStatsDto;
+import study.querydsl.dto.AgeStatsSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberAnalyticsService;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 이후 이벤트로 갱신되므로 @Transactional 없이 직접 커밋하고 정리한다.
+ * parallel-threshold 를 낮춰서 fork-join 경로도 같이 확인한다.
+ * 스냅샷은 테이블 전체로 만들어지므로 전용 in-memory DB 에서 돌린다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:columnar-snapshot-test;DB_CLOSE_DELAY=-1",
+        "member.columnar-snapshot.enabled=true",
+        "member.columnar-snapshot.parallel-threshold=2"})
+class MemberColumnarSnapshotTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberColumnarSnapshot snapshot;
+    @Autowired
+    MemberAnalyticsService memberAnalyticsService;
+
+    TransactionTemplate tx;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        member1Id = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("free", 50));
+            return member1.getId();
+        });
+        //다른 테스트의 벌크 delete 로 stale 일 수 있으므로 동기로 다시 만든다.
+        snapshot.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void ageStats() {
+        AgeStatsDto all = memberAnalyticsService.ageStats(new MemberSearchCondition());
+        assertThat(all.getSource()).isEqualTo(AgeStatsSource.SNAPSHOT);
+        assertThat(all.getCount()).isEqualTo(5);
+        assertThat(all.getSum()).isEqualTo(150);
+        assertThat(all.getAvg()).isEqualTo(30.0);
+        assertThat(all.getMin()).isEqualTo(10);
+        assertThat(all.getMax()).isEqualTo(50);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeLoe(35);
+        AgeStatsDto teamB = memberAnalyticsService.ageStats(condition);
+        assertThat(teamB.getCount()).isEqualTo(1);
+        assertThat(teamB.getAvg()).isEqualTo(30.0);
+
+        condition = new MemberSearchCondition();
+        condition.setUsernameContains("MEMBER");
+        condition.setAgeGoe(20);
+        assertThat(memberAnalyticsService.ageStats(condition).getSum()).isEqualTo(90);
+
+        condition = new MemberSearchCondition();
+        condition.setUsername("nobody");
+        AgeStatsDto empty = memberAnalyticsService.ageStats(condition);
+        assertThat(empty.getCount()).isZero();
+        assertThat(empty.getAvg()).isNull();
+        assertThat(empty.getMin()).isNull();
+    }
+
+    @Test
+    public void ageStatsByTeamMatchesDatabase() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<AgeStatsDto> result = memberAnalyticsService.ageStatsByTeam(condition);
+
+        //팀이 없는 회원은 빠진다. (member join team)
+        assertThat(result)
+                .extracting("teamName", "count", "avg", "min", "max", "source")
+                .containsExactly(
+                        tuple("teamA", 2L, 15.0, 10, 20, AgeStatsSource.SNAPSHOT),
+                        tuple("teamB", 2L, 35.0, 30, 40, AgeStatsSource.SNAPSHOT));
+
+        List<AgeStatsDto> database = tx.execute(status -> memberAnalyticsService.ageStatsByTeamFromDatabase(condition));
+        assertThat(database)
+                .extracting("teamName", "count", "sum", "avg", "min", "max")
+                .containsExactly(
+                        tuple("teamA", 2L, 30L, 15.0, 10, 20),
+                        tuple("teamB", 2L, 70L, 35.0, 30, 40));
+    }
+
+    @Test
+    public void incrementalUpdate() {
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setAge(12);
+            member1.changeTeam(em.find(Team.class, queryFactory
+                    .select(team.id).from(team).where(team.name.eq("teamB")).fetchOne()));
+        });
+        tx.executeWithoutResult(status -> em.persist(new Team("teamC")));
+        tx.executeWithoutResult(status -> {
+            Team teamC = queryFactory.selectFrom(team).where(team.name.eq("teamC")).fetchOne();
+            em.persist(new Member("member5", 60, teamC));
+        });
+
+        assertThat(snapshot.isStale()).isFalse();
+        assertThat(memberAnalyticsService.ageStatsByTeam(new MemberSearchCondition()))
+                .extracting("teamName", "count", "sum")
+                .containsExactly(
+                        tuple("teamA", 1L, 20L),
+                        tuple("teamB", 3L, 82L),
+                        tuple("teamC", 1L, 60L));
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+        assertThat(memberAnalyticsService.ageStats(new MemberSearchCondition()).getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void bulkUpdateFallsBackToDatabase() {
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        //다시 만들기 전에는 DB에서 집계한다. (백그라운드 재생성이 먼저 끝났으면 스냅샷)
+        AgeStatsDto stale = memberAnalyticsService.ageStats(new MemberSearchCondition());
+        assertThat(stale.getSum()).isEqualTo(155);
+
+        snapshot.rebuild();
+        assertThat(snapshot.isStale()).isFalse();
+        AgeStatsDto rebuilt = memberAnalyticsService.ageStats(new MemberSearchCondition());
+        assertThat(rebuilt.getSource()).isEqualTo(AgeStatsSource.SNAPSHOT);
+        assertThat(rebuilt.getSum()).isEqualTo(155);
+    }
+}
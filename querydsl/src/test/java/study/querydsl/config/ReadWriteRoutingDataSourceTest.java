@@ -0,0 +1,57 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writer-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:replica-test;DB_CLOSE_DELAY=-1"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ReadOnlyMetrics readOnlyMetrics;
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        long readerConnections = readOnlyMetrics.snapshot().get("readerConnections");
+
+        String readOnlyDatabase = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("select database()", String.class));
+        String readWriteDatabase = readWrite.execute(status ->
+                jdbcTemplate.queryForObject("select database()", String.class));
+
+        assertThat(readOnlyDatabase).isEqualToIgnoringCase("replica-test");
+        assertThat(readWriteDatabase).isEqualToIgnoringCase("writer-test");
+        assertThat(readOnlyMetrics.snapshot().get("readerConnections")).isGreaterThan(readerConnections);
+    }
+
+    //변경 직후 다시 만드는 캐시/색인은 readOnly 트랜잭션이어도 writer 에서 읽는다.
+    @Test
+    public void pinnedReadOnlyTransactionGoesToWriter() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String pinned = WriterRouting.call(() -> readOnly.execute(status ->
+                jdbcTemplate.queryForObject("select database()", String.class)));
+        String afterPinned = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("select database()", String.class));
+
+        assertThat(pinned).isEqualToIgnoringCase("writer-test");
+        assertThat(afterPinned).isEqualToIgnoringCase("replica-test");
+    }
+}
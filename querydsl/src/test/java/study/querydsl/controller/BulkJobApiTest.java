@@ -0,0 +1,106 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.bulk.InvalidBulkJobOptionsException;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 작업은 백그라운드 스레드에서 chunk 마다 커밋되므로 데이터를 커밋하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk-job-api-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class BulkJobApiTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 20; i++) {
+                em.persist(new Member("member" + i, i));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(bulkJobCheckpoint).execute();
+        });
+    }
+
+    @Test
+    public void acceptedAndPolled() throws Exception {
+        mockMvc.perform(post("/v1/bulk-jobs/member-age")
+                        .param("ageLt", "10")
+                        .param("chunkSize", "3"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobName").value("member-age-lt-10-add-1"));
+
+        JsonNode job = poll("member-age-lt-10-add-1");
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("processedRows").asLong()).isEqualTo(10);
+        assertThat(job.get("chunks").asLong()).isEqualTo(4);
+    }
+
+    @Test
+    public void invalidOptionsAreBadRequest() throws Exception {
+        mockMvc.perform(post("/v1/bulk-jobs/member-age").param("ageLt", "10").param("chunkSize", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertThat(result.getResolvedException())
+                        .isInstanceOf(InvalidBulkJobOptionsException.class));
+        mockMvc.perform(post("/v1/bulk-jobs/member-age").param("ageLt", "10").param("maxRowsPerSecond", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode poll(String jobName) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            String body = mockMvc.perform(get("/v1/bulk-jobs"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            for (JsonNode job : objectMapper.readTree(body)) {
+                if (job.get("jobName").asText().equals(jobName) && !job.get("status").asText().equals("RUNNING")) {
+                    return job;
+                }
+            }
+            assertThat(System.nanoTime()).as("job did not finish: " + jobName).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberCursorApiTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        String unknownSort = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("NAME:10:1".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : new String[]{"not-base64!", unknownSort, "QUdFOjEw"}) {
+            mockMvc.perform(get("/v2/members").param("cursor", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(result -> assertThat(result.getResolvedException())
+                            .isInstanceOf(InvalidCursorException.class));
+        }
+    }
+}
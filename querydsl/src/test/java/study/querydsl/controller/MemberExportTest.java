@@ -0,0 +1,128 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * export 는 StatelessSession 으로 따로 조회하므로 @Transactional 롤백 데이터가 보이지 않는다.
+ * 직접 커밋하고 정리한다. (member/team 을 통째로 지우므로 전용 in-memory DB)
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-export-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class MemberExportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    List<Member> members;
+
+    @BeforeEach
+    public void before() {
+        members = new TransactionTemplate(transactionManager).execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("team,B");
+            em.persist(teamA);
+            em.persist(teamB);
+            List<Member> saved = List.of(
+                    new Member("member1", 10, teamA),
+                    new Member("kim, \"jr\"", 20, teamA),
+                    new Member("line\r\nbreak", 30),
+                    new Member("carriage\rreturn", 40, teamB));
+            saved.forEach(em::persist);
+            return saved;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void ndjson() throws Exception {
+        String body = export("NDJSON", "application/x-ndjson");
+
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        //문자열 안의 \r, \n 은 JSON 이스케이프되므로 한 줄에 한 row
+        assertThat(rows).extracting(row -> row.get("username").asText(), row -> row.get("teamName").isNull()
+                        ? null : row.get("teamName").asText())
+                .containsExactly(
+                        tuple("member1", "teamA"),
+                        tuple("kim, \"jr\"", "teamA"),
+                        tuple("line\r\nbreak", null),
+                        tuple("carriage\rreturn", "team,B"));
+        assertThat(rows).extracting(row -> row.get("memberId").asLong())
+                .containsExactly(id(0), id(1), id(2), id(3));
+    }
+
+    @Test
+    public void csv() throws Exception {
+        String body = export("CSV", "text/csv");
+
+        assertThat(body).isEqualTo("memberId,username,age,teamId,teamName\n"
+                + id(0) + ",member1,10," + teamId(0) + ",teamA\n"
+                + id(1) + ",\"kim, \"\"jr\"\"\",20," + teamId(1) + ",teamA\n"
+                + id(2) + ",\"line\r\nbreak\",30,,\n"
+                + id(3) + ",\"carriage\rreturn\",40," + teamId(3) + ",\"team,B\"\n");
+    }
+
+    private String export(String format, String contentType) throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/members/export").param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType));
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private long id(int index) {
+        return members.get(index).getId();
+    }
+
+    private long teamId(int index) {
+        return members.get(index).getTeam().getId();
+    }
+}
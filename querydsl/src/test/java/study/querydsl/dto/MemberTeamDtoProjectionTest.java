@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberTeamDtoProjection 은 ProjectionProcessor 가 compileJava 에서 생성한다.
+ * 프로세서 연결이 빠지면 이 테스트부터 컴파일되지 않는다.
+ */
+class MemberTeamDtoProjectionTest {
+
+    @Test
+    public void generatedProjectionCallsConstructor() {
+        MemberTeamDtoProjection projection =
+                new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name);
+
+        assertThat(projection.getType()).isEqualTo(MemberTeamDto.class);
+        assertThat(projection.getArgs()).containsExactly(member.id, member.username, member.age, team.id, team.name);
+        assertThat(projection.newInstance(1L, "member1", 10, 2L, "teamA"))
+                .isEqualTo(new MemberTeamDto(1L, "member1", 10, 2L, "teamA"));
+        assertThat(projection.newInstance(3L, "member3", 30, null, null))
+                .isEqualTo(new MemberTeamDto(3L, "member3", 30, null, null));
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.loader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.sql.SqlStatementCounter;
+import study.querydsl.sql.SqlStatementScope;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 실행 중에는 mock request가 바인딩되어 있어서 request scope 빈을 그대로 쓸 수 있다.
+ * 다른 테스트 데이터와 섞이지 않도록 fixture 나이는 1000 이상으로 두고 ageGoe=1000 으로 조회한다.
+ */
+@SpringBootTest
+@Transactional
+class TeamBatchLoaderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamBatchLoader teamBatchLoader;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 4; j++) {
+                em.persist(new Member("member" + i + "-" + j, 1000 + i * 10 + j, team));
+            }
+        }
+        em.persist(new Member("noTeam", 1099));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void membersToDtosInTwoQueries() {
+        try (SqlStatementScope scope = sqlStatementCounter.open("teamBatchLoader")) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(1000);
+            List<Member> members = memberJpaRepository.searchMembers(condition);
+            List<MemberTeamDto> result = teamBatchLoader.toMemberTeamDtos(members);
+
+            assertThat(result).hasSize(21);
+            assertThat(result).filteredOn(dto -> dto.getUsername().equals("member3-1"))
+                    .extracting("teamName").containsExactly("team3");
+            assertThat(result).filteredOn(dto -> dto.getUsername().equals("noTeam"))
+                    .extracting("teamName").containsOnlyNulls();
+
+            //로딩된 팀은 영속성 컨텍스트에 있으므로 프록시 초기화도 쿼리가 나가지 않는다.
+            for (Member member : members) {
+                if (member.getTeam() != null) {
+                    member.getTeam().getName();
+                }
+            }
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+
+            //같은 요청 안에서는 다시 조회하지 않는다.
+            teamBatchLoader.toMemberTeamDtos(members);
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+            assertThat(teamBatchLoader.getDispatches()).isEqualTo(1);
+        }
+    }
+}
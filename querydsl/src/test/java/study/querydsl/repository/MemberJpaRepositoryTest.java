@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberCursorRequest;
+import study.querydsl.dto.MemberCursorSort;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -69,4 +72,38 @@ class MemberJpaRepositoryTest {
 
     }
 
+    @Test
+    public void searchByCursorTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        //다른 테스트 데이터와 섞이지 않도록 ageGoe=1000 으로 조회한다.
+        em.persist(new Member("member1",1040,teamA));
+        em.persist(new Member("member2",1010,teamB));
+        em.persist(new Member("member3",1030,teamB));
+        em.persist(new Member("member4",1020,teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        MemberCursorRequest request = new MemberCursorRequest();
+        request.setSize(3);
+        request.setSort(MemberCursorSort.AGE);
+        request.setWithTotal(true);
+
+        MemberCursorPage first = memberJpaRepository.searchByCursor(condition, request);
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member4", "member3");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getTotalCount()).isEqualTo(4);
+
+        request.setCursor(first.getNextCursor());
+        request.setWithTotal(false);
+        MemberCursorPage second = memberJpaRepository.searchByCursor(condition, request);
+        assertThat(second.getContent()).extracting("username").containsExactly("member1");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.getTotalCount()).isNull();
+    }
+
 }
\ No newline at end of file
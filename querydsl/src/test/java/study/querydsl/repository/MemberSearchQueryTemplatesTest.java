@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryTemplatesTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberSearchQueryTemplates memberSearchQueryTemplates;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    //모든 shape(2^4)에 대해 Querydsl 동적 쿼리와 같은 결과가 나와야 한다.
+    @Test
+    public void sameResultAsDynamicQuery() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 40 : null);
+
+            List<MemberTeamDto> expected = memberJpaRepository.search(condition);
+            List<MemberTeamDto> actual = memberSearchQueryTemplates.search(condition);
+
+            assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        //같은 shape을 다시 조회하면 템플릿을 재사용한다.
+        long hits = memberSearchQueryTemplates.stats().getHits();
+        memberSearchQueryTemplates.search(new MemberSearchCondition());
+        assertThat(memberSearchQueryTemplates.stats().getHits()).isEqualTo(hits + 1);
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlStatementCounter;
+import study.querydsl.sql.SqlStatementScope;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 공유 DB 에 다른 팀이 있어도 되도록 페이지 offset 은 fixture 첫 팀 앞에 있는 팀 수만큼 민다.
+ */
+@SpringBootTest
+@Transactional
+class TeamJpaRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    long offset;
+
+    @BeforeEach
+    public void before() {
+        Long firstTeamId = null;
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            teamJpaRepository.save(team);
+            if (firstTeamId == null) {
+                firstTeamId = team.getId();
+            }
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+        offset = queryFactory.select(team.count()).from(team).where(team.id.lt(firstTeamId)).fetchOne();
+    }
+
+    @Test
+    public void batchFetch() {
+        try (SqlStatementScope scope = sqlStatementCounter.open("batchFetch")) {
+            List<Team> teams = teamJpaRepository.findPage(offset + 2, 5);
+            int members = teams.stream().mapToInt(t -> t.getMembers().size()).sum();
+
+            assertThat(teams).extracting("name").containsExactly("team2", "team3", "team4", "team5", "team6");
+            assertThat(members).isEqualTo(15);
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void fetchJoinByIds() {
+        try (SqlStatementScope scope = sqlStatementCounter.open("fetchJoinByIds")) {
+            List<Team> teams = teamJpaRepository.findPageWithMembers(offset + 2, 5);
+            int members = teams.stream().mapToInt(t -> t.getMembers().size()).sum();
+
+            assertThat(teams).extracting("name").containsExactly("team2", "team3", "team4", "team5", "team6");
+            assertThat(members).isEqualTo(15);
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 이후 이벤트로 갱신되므로 @Transactional 없이 직접 커밋하고 정리한다.
+ * 인덱스는 시작할 때 DB 전체로 만들어지므로 다른 데이터가 섞이지 않는 전용 in-memory DB 를 쓴다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:username-index-test;DB_CLOSE_DELAY=-1")
+class UsernameIndexTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    UsernameIndex usernameIndex;
+    @Autowired
+    MemberSearchQueryTemplates memberSearchQueryTemplates;
+
+    TransactionTemplate tx;
+    Long aliceId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        aliceId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member alice = new Member("Alice", 10, teamA);
+            em.persist(alice);
+            em.persist(new Member("malice", 20, teamA));
+            em.persist(new Member("bob", 30, teamA));
+            em.persist(new Member("Bobby", 40));
+            return alice.getId();
+        });
+        //다른 테스트의 벌크 delete 로 stale 일 수 있으므로 동기로 다시 만든다.
+        usernameIndex.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void containsAndStartsWith() {
+        long lookups = usernameIndex.stats().getLookups();
+
+        assertThat(usernames(contains("LIC"))).containsExactlyInAnyOrder("Alice", "malice");
+        assertThat(usernames(startsWith("al"))).containsExactly("Alice");
+        assertThat(usernames(startsWith("BOB"))).containsExactlyInAnyOrder("bob", "Bobby");
+        //gram 은 모두 있지만 순서가 다른 경우
+        assertThat(usernames(contains("ceali"))).isEmpty();
+        assertThat(usernames(contains("zzz"))).isEmpty();
+
+        MemberSearchCondition condition = contains("lic");
+        condition.setAgeGoe(15);
+        assertThat(usernames(condition)).containsExactly("malice");
+
+        assertThat(usernameIndex.stats().getLookups()).isEqualTo(lookups + 6);
+    }
+
+    @Test
+    public void shortTextFallsBackToLike() {
+        long fallbacks = usernameIndex.stats().getFallbacks();
+
+        //3글자 미만은 gram 이 없으므로 like 조건으로 조회한다.
+        assertThat(usernames(contains("ob"))).containsExactlyInAnyOrder("bob", "Bobby");
+        assertThat(usernames(startsWith("m"))).containsExactly("malice");
+
+        assertThat(usernameIndex.stats().getFallbacks()).isEqualTo(fallbacks + 2);
+    }
+
+    @Test
+    public void incrementalUpdate() {
+        tx.executeWithoutResult(status -> em.find(Member.class, aliceId).setUsername("Carol"));
+        tx.executeWithoutResult(status -> em.persist(new Member("Caroline", 50)));
+
+        assertThat(usernameIndex.isStale()).isFalse();
+        assertThat(usernames(contains("alice"))).containsExactly("malice");
+        assertThat(usernames(startsWith("car"))).containsExactlyInAnyOrder("Carol", "Caroline");
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, aliceId)));
+        assertThat(usernames(startsWith("car"))).containsExactly("Caroline");
+    }
+
+    @Test
+    public void bulkUpdateRebuilds() {
+        long rebuilds = usernameIndex.stats().getRebuilds();
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.username, member.username.concat("x"))
+                .where(member.username.eq("bob"))
+                .execute());
+
+        //다시 만들기 전에도 like 조건으로 정확한 결과를 돌려준다.
+        assertThat(usernames(contains("bobx"))).containsExactly("bobx");
+
+        usernameIndex.rebuild();
+        assertThat(usernameIndex.isStale()).isFalse();
+        assertThat(usernameIndex.stats().getRebuilds()).isGreaterThan(rebuilds);
+        assertThat(usernameIndex.find("bobx", false)).hasSize(1);
+    }
+
+    private List<String> usernames(MemberSearchCondition condition) {
+        List<MemberTeamDto> result = memberSearchQueryTemplates.search(condition);
+        return result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+    }
+
+    private static MemberSearchCondition contains(String text) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(text);
+        return condition;
+    }
+
+    private static MemberSearchCondition startsWith(String text) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith(text);
+        return condition;
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.seed;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolationException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * chunk 마다 커밋하므로 @Transactional 없이 확인하고, 전용 in-memory DB 에서 통째로 정리한다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-bulk-loader-test;DB_CLOSE_DELAY=-1")
+class MemberBulkLoaderTest {
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void load() {
+        SeedProperties properties = new SeedProperties();
+        properties.setTeams(3);
+        properties.setMembers(250);
+        properties.setChunkSize(100);
+        properties.setFlushSize(30);
+        AtomicLong progress = new AtomicLong();
+
+        assertThat(memberBulkLoader.load(properties, progress::addAndGet)).isEqualTo(250);
+
+        //chunk(100, 100, 50) 가 커밋될 때마다 progress
+        assertThat(progress.get()).isEqualTo(250);
+        List<Tuple> teams = new TransactionTemplate(transactionManager).execute(status -> queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch());
+        //ROUND_ROBIN: 84, 83, 83
+        assertThat(teams).extracting(row -> row.get(team.name), row -> row.get(member.count()))
+                .containsExactly(
+                        tuple("temaA", 84L),
+                        tuple("temaB", 83L),
+                        tuple("temaC", 83L));
+        Integer maxAge = new TransactionTemplate(transactionManager).execute(status ->
+                queryFactory.select(member.age.max()).from(member).fetchOne());
+        assertThat(maxAge).isEqualTo(99);
+    }
+
+    @Test
+    public void parallelLoad() {
+        SeedProperties properties = new SeedProperties();
+        properties.setTeams(2);
+        properties.setMembers(500);
+        properties.setChunkSize(100);
+        properties.setThreads(4);
+
+        memberBulkLoader.load(properties);
+
+        Long count = new TransactionTemplate(transactionManager).execute(status ->
+                queryFactory.select(member.count()).from(member).fetchOne());
+        assertThat(count).isEqualTo(500);
+    }
+
+    //chunkSize=0 이면 chunk 루프가 끝나지 않고, flushSize=0 이면 % 0 으로 실패한다.
+    @Test
+    public void invalidProperties() {
+        SeedProperties zeroChunk = new SeedProperties();
+        zeroChunk.setChunkSize(0);
+        SeedProperties zeroFlush = new SeedProperties();
+        zeroFlush.setFlushSize(0);
+        SeedProperties ageRange = new SeedProperties();
+        ageRange.setMinAge(50);
+        ageRange.setMaxAge(10);
+
+        assertThatThrownBy(() -> memberBulkLoader.load(zeroChunk))
+                .isInstanceOf(ConstraintViolationException.class)
+                .hasMessageContaining("chunkSize");
+        assertThatThrownBy(() -> memberBulkLoader.load(zeroFlush))
+                .isInstanceOf(ConstraintViolationException.class)
+                .hasMessageContaining("flushSize");
+        assertThatThrownBy(() -> memberBulkLoader.load(ageRange))
+                .isInstanceOf(ConstraintViolationException.class)
+                .hasMessageContaining("ageRangeValid");
+
+        Long teams = new TransactionTemplate(transactionManager).execute(status ->
+                queryFactory.select(team.count()).from(team).fetchOne());
+        assertThat(teams).isZero();
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.seed;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 백그라운드 스레드에서 chunk 별로 커밋하므로 @Transactional 없이 확인하고 정리한다.
+ * 정리할 때 member/team 을 전부 지우므로 공유 tcp DB 대신 이 테스트 전용 in-memory DB 를 쓴다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:seed-test;DB_CLOSE_DELAY=-1")
+class SeedRunnerTest {
+
+    @Autowired
+    SeedRunner seedRunner;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ApplicationAvailability applicationAvailability;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void asyncSeed() throws Exception {
+        SeedProperties properties = new SeedProperties();
+        properties.setTeams(3);
+        properties.setMembers(250);
+        properties.setChunkSize(100);
+        properties.setHoldReadiness(true);
+
+        SeedProgress result = seedRunner.start(properties).get(30, TimeUnit.SECONDS);
+
+        assertThat(result.getStatus()).isEqualTo(SeedStatus.COMPLETED);
+        assertThat(result.getMembers()).isEqualTo(250);
+        assertThat(result.getLoadedMembers()).isEqualTo(250);
+        assertThat(result.getError()).isNull();
+        assertThat(seedRunner.progress().getStatus()).isEqualTo(SeedStatus.COMPLETED);
+        //적재가 끝나면 readiness 를 다시 연다.
+        assertThat(applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        Long count = new TransactionTemplate(transactionManager).execute(status ->
+                queryFactory.select(member.count()).from(member).fetchOne());
+        assertThat(count).isEqualTo(250);
+    }
+}
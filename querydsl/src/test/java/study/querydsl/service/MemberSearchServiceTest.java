@@ -0,0 +1,156 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.async.AsyncQueryExecutor;
+import study.querydsl.dto.MemberPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TotalCountSource;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.stats.TeamStatisticsStore;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * count는 다른 커넥션에서 실행되므로 데이터를 커밋하고 직접 정리한다. 정리는 전용 in-memory DB 안에서만 일어난다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-search-service-test;DB_CLOSE_DELAY=-1")
+class MemberSearchServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberSearchService memberSearchService;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    AsyncQueryExecutor asyncQueryExecutor;
+    @Autowired
+    TeamStatisticsStore teamStatisticsStore;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("member" + i, i, i < 15 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void countRunsInParallel() {
+        MemberPage page = memberSearchService.searchPage(new MemberSearchCondition(), PageRequest.of(0, 10), false);
+
+        assertThat(page.getContent()).extracting("username")
+                .containsExactly("member0", "member1", "member2", "member3", "member4",
+                        "member5", "member6", "member7", "member8", "member9");
+        assertThat(page.getTotalCount()).isEqualTo(25);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getTotalCountSource()).isEqualTo(TotalCountSource.PARALLEL);
+    }
+
+    @Test
+    public void countIsSkippedWhenPageProvesTotal() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberPage lastPage = memberSearchService.searchPage(condition, PageRequest.of(2, 10), false);
+        assertThat(lastPage.getContent()).hasSize(5);
+        assertThat(lastPage.getTotalCount()).isEqualTo(25);
+        assertThat(lastPage.getTotalCountSource()).isEqualTo(TotalCountSource.PAGE);
+
+        condition.setTeamName("teamB");
+        MemberPage shortFirstPage = memberSearchService.searchPage(condition, PageRequest.of(0, 20), false);
+        assertThat(shortFirstPage.getTotalCount()).isEqualTo(10);
+        assertThat(shortFirstPage.getTotalCountSource()).isEqualTo(TotalCountSource.PAGE);
+    }
+
+    @Test
+    public void countInsideTransactionRunsSequentially() {
+        MemberPage page = tx.execute(status ->
+                memberSearchService.searchPage(new MemberSearchCondition(), PageRequest.of(0, 10), false));
+
+        assertThat(page.getTotalCount()).isEqualTo(25);
+        assertThat(page.getTotalCountSource()).isEqualTo(TotalCountSource.SEQUENTIAL);
+    }
+
+    @Test
+    public void approximateCountFromTeamStatistics() {
+        //근사값을 항상 쓰도록 threshold = 1
+        MemberSearchService service = new MemberSearchService(
+                memberJpaRepository, asyncQueryExecutor, teamStatisticsStore, 1);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(3);
+        condition.setAgeLoe(12);
+        //이전 테스트의 벌크 delete 로 stale 이면 근사값을 쓰지 않으므로 먼저 집계해 둔다.
+        teamStatisticsStore.rebuild();
+
+        MemberPage page = service.searchPage(condition, PageRequest.of(0, 5), true);
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getTotalCount()).isEqualTo(memberJpaRepository.count(condition)).isEqualTo(10);
+        assertThat(page.getTotalCountSource()).isEqualTo(TotalCountSource.APPROXIMATE);
+
+        //username 조건은 통계로 계산할 수 없다.
+        condition.setUsername("member5");
+        MemberPage exact = service.searchPage(condition, PageRequest.of(0, 5), true);
+        assertThat(exact.getTotalCount()).isEqualTo(1);
+        assertThat(exact.getTotalCountSource()).isEqualTo(TotalCountSource.PAGE);
+    }
+
+    @Test
+    public void approximateCountIncludesMembersWithoutTeam() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("noTeam" + i, 30 + i));
+            }
+        });
+        MemberSearchService service = new MemberSearchService(
+                memberJpaRepository, asyncQueryExecutor, teamStatisticsStore, 1);
+        teamStatisticsStore.rebuild();
+
+        MemberPage all = service.searchPage(new MemberSearchCondition(), PageRequest.of(0, 5), true);
+        assertThat(all.getTotalCount()).isEqualTo(memberJpaRepository.count(new MemberSearchCondition())).isEqualTo(30);
+        assertThat(all.getTotalCountSource()).isEqualTo(TotalCountSource.APPROXIMATE);
+
+        MemberSearchCondition older = new MemberSearchCondition();
+        older.setAgeGoe(20);
+        MemberPage olderPage = service.searchPage(older, PageRequest.of(0, 5), true);
+        assertThat(olderPage.getTotalCount()).isEqualTo(memberJpaRepository.count(older)).isEqualTo(10);
+
+        //팀이 없는 회원은 팀 통계에는 나오지 않는다.
+        assertThat(teamStatisticsStore.findAll()).extracting("teamName").containsExactly("teamA", "teamB");
+    }
+}
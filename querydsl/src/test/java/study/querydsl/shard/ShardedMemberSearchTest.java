@@ -0,0 +1,123 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.ShardMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-test;DB_CLOSE_DELAY=-1",
+        "shard.urls[0]=jdbc:h2:mem:shard-test0;DB_CLOSE_DELAY=-1",
+        "shard.urls[1]=jdbc:h2:mem:shard-test1;DB_CLOSE_DELAY=-1",
+        "shard.urls[2]=jdbc:h2:mem:shard-test2;DB_CLOSE_DELAY=-1"
+})
+class ShardedMemberSearchTest {
+
+    @Autowired
+    MemberShards memberShards;
+    @Autowired
+    ShardedMemberSearch shardedMemberSearch;
+
+    @BeforeEach
+    public void before() {
+        for (int shard = 0; shard < memberShards.size(); shard++) {
+            memberShards.inTransaction(shard, em -> {
+                em.createQuery("delete from Member").executeUpdate();
+                em.createQuery("delete from Team").executeUpdate();
+                return null;
+            });
+        }
+        for (String teamName : new String[]{"teamA", "teamB", "teamC", "teamD"}) {
+            memberShards.inTransaction(memberShards.shardForTeam(teamName), em -> {
+                Team team = new Team(teamName);
+                em.persist(team);
+                for (int age = 10; age <= 40; age += 10) {
+                    em.persist(new Member(teamName + "_member" + age, age, team));
+                }
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void fanOutAndMerge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<ShardMemberTeamDto> all = shardedMemberSearch.search(condition, 100);
+        assertThat(all).hasSize(12);
+        assertThat(all).extracting("age").allMatch(age -> (int) age >= 20);
+        assertThat(all).extracting(ShardMemberTeamDto::getMemberId).isSorted();
+        //샤드마다 id 를 따로 채번하므로 memberId 만으로는 겹치고, (shardId, memberId) 로는 겹치지 않는다.
+        assertThat(all.stream().map(ShardMemberTeamDto::getMemberId).distinct().count()).isLessThan(12);
+        assertThat(all).extracting(ShardMemberTeamDto::getShardId, ShardMemberTeamDto::getMemberId)
+                .doesNotHaveDuplicates();
+        assertThat(all).allMatch(row -> row.getShardId() == memberShards.shardForTeam(row.getTeamName()));
+
+        List<ShardMemberTeamDto> limited = shardedMemberSearch.search(condition, 5);
+        assertThat(limited).containsExactlyElementsOf(all.subList(0, 5));
+    }
+
+    @Test
+    public void teamNameIsRoutedToOneShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+
+        List<ShardMemberTeamDto> result = shardedMemberSearch.search(condition, 100);
+        assertThat(result).hasSize(4);
+        assertThat(result).extracting("teamName").containsOnly("teamC");
+    }
+
+    @Test
+    public void mergeOrdersAndDedupesOnShardAndMemberId() {
+        List<ShardMemberTeamDto> shard0 = List.of(row(0, 1L), row(0, 2L), row(0, 5L));
+        List<ShardMemberTeamDto> shard1 = List.of(row(1, 1L), row(1, 3L));
+
+        List<ShardMemberTeamDto> merged = ShardedMemberSearch.merge(List.of(shard0, shard1, shard1), 10);
+
+        assertThat(merged).extracting(ShardMemberTeamDto::getShardId, ShardMemberTeamDto::getMemberId)
+                .containsExactly(tuple(0, 1L), tuple(1, 1L), tuple(0, 2L), tuple(1, 3L), tuple(0, 5L));
+    }
+
+    @Test
+    public void notConfiguredIsUnavailable() {
+        ShardProperties empty = new ShardProperties();
+        MemberShards noShards = new MemberShards(empty);
+        ShardedMemberSearch search = new ShardedMemberSearch(noShards, empty);
+        try {
+            assertThatThrownBy(() -> search.search(new MemberSearchCondition(), 10))
+                    .isInstanceOf(ShardUnavailableException.class);
+        } finally {
+            search.destroy();
+        }
+    }
+
+    @Test
+    public void timeoutIsGatewayTimeout() {
+        ShardProperties properties = new ShardProperties();
+        properties.setTimeout(Duration.ofNanos(1));
+        ShardedMemberSearch search = new ShardedMemberSearch(memberShards, properties);
+        try {
+            assertThatThrownBy(() -> search.search(new MemberSearchCondition(), 100))
+                    .isInstanceOf(ShardSearchTimeoutException.class);
+        } finally {
+            search.destroy();
+        }
+    }
+
+    private static ShardMemberTeamDto row(int shard, long memberId) {
+        return new ShardMemberTeamDto(shard, new MemberTeamDto(memberId, "member" + memberId, 20, null, null));
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.sql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.IndexAdviceDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        em.flush();
+        em.clear();
+        indexAdvisor.clear();
+    }
+
+    @Test
+    public void usernameSearchUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        memberJpaRepository.search(condition);
+
+        List<IndexAdviceDto> advice = indexAdvisor.advise(false);
+
+        assertThat(advice).hasSize(1);
+        assertThat(advice.get(0).getPlan()).containsIgnoringCase("IDX_MEMBER_USERNAME_AGE");
+        assertThat(advice.get(0).isFullScan()).isFalse();
+    }
+
+    @Test
+    public void teamNameFilterOnOuterJoinIsReported() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberJpaRepository.search(condition);
+
+        List<IndexAdviceDto> advice = indexAdvisor.advise(true);
+
+        //member left join team 에서 member 는 항상 바깥 테이블이다.
+        assertThat(advice).hasSize(1);
+        assertThat(advice.get(0).getFullScanTables()).containsExactly("member");
+        assertThat(advice.get(0).getNote()).contains("inner join");
+    }
+
+    @Test
+    public void suggestEqualityColumnsBeforeRange() {
+        Map<String, List<String>> columns = IndexAdvisor.predicateColumns(
+                "select m.member_id from member m left outer join team t on m.team_id=t.id "
+                        + "where m.age>=? and m.username=? and t.name=? order by m.member_id asc");
+
+        assertThat(columns.get("member")).containsExactly("username", "age");
+        assertThat(columns.get("team")).containsExactly("name");
+    }
+}
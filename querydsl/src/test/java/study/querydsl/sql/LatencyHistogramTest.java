@@ -0,0 +1,34 @@
+package study.querydsl.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 10L);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMaxMicros()).isEqualTo(10_000);
+        //bucket 상한값이므로 실제 값보다 작지 않고, 12.5% 이상 크지 않다.
+        assertThat(histogram.percentile(50)).isBetween(5_000L, 5_625L);
+        assertThat(histogram.percentile(99)).isBetween(9_900L, 10_000L);
+        assertThat(histogram.percentile(100)).isEqualTo(10_000);
+    }
+
+    @Test
+    public void bucketBoundaries() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 100, 1_000, 123_456, 1L << 40, Long.MAX_VALUE}) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+            if (value < (1L << 41)) {
+                assertThat(upper).isGreaterThanOrEqualTo(value);
+                assertThat(upper).isLessThanOrEqualTo(value + value / 8 + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.sql;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.SqlShapeOrder;
+import study.querydsl.dto.SqlShapeStatsDto;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class SqlLatencyRecorderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SqlLatencyRecorder sqlLatencyRecorder;
+
+    @Test
+    public void recordsLatencyAndRowsPerShape() {
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("latency" + i, i));
+        }
+        em.flush();
+        em.clear();
+        sqlLatencyRecorder.reset();
+
+        for (int i = 0; i < 3; i++) {
+            queryFactory
+                    .selectFrom(member)
+                    .where(member.username.startsWith("latency"), member.age.goe(i))
+                    .fetch();
+        }
+
+        List<SqlShapeStatsDto> stats = sqlLatencyRecorder.slowest(10, SqlShapeOrder.COUNT.comparator());
+        SqlShapeStatsDto select = stats.stream()
+                .filter(s -> s.getSql().startsWith("select") && s.getSql().contains("member"))
+                .findFirst()
+                .orElseThrow();
+        //age 조건 값이 달라도 같은 모양으로 묶인다.
+        assertThat(select.getCount()).isEqualTo(3);
+        assertThat(select.getRows()).isEqualTo(5 + 4 + 3);
+        assertThat(select.getP99Micros()).isLessThanOrEqualTo(select.getMaxMicros());
+    }
+}
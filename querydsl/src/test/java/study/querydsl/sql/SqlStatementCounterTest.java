@@ -0,0 +1,84 @@
+package study.querydsl.sql;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statement-counter-test;DB_CLOSE_DELAY=-1")
+@Transactional
+class SqlStatementCounterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyLoadingIsDetectedAsNPlusOne() {
+        assertThatThrownBy(() -> {
+            try (SqlStatementScope scope = sqlStatementCounter.open("lazyLoading")) {
+                List<Member> members = queryFactory
+                        .selectFrom(member)
+                        .fetch();
+                for (Member m : members) {
+                    m.getTeam().getName();
+                }
+            }
+        }).isInstanceOf(StatementBudgetExceededException.class)
+                .hasMessageContaining("lazyLoading");
+    }
+
+    @Test
+    public void fetchJoinStaysInBudget() {
+        try (SqlStatementScope scope = sqlStatementCounter.open("fetchJoin")) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .fetch();
+            for (Member m : members) {
+                m.getTeam().getName();
+            }
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void nestedScopeRestoresOuter() {
+        try (SqlStatementScope outer = sqlStatementCounter.open("outer")) {
+            queryFactory.selectFrom(team).fetch();
+            try (SqlStatementScope inner = sqlStatementCounter.open("inner")) {
+                queryFactory.selectFrom(member).fetch();
+                assertThat(inner.getStatementCount()).isEqualTo(1);
+            }
+            //안쪽 scope 가 닫힌 뒤에도 바깥 scope 에 계속 집계된다.
+            queryFactory.selectFrom(team).fetch();
+            assertThat(outer.getStatementCount()).isEqualTo(3);
+        }
+    }
+}
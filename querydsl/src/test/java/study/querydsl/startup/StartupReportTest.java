@@ -0,0 +1,31 @@
+package study.querydsl.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.StartupPhaseDto;
+import study.querydsl.dto.StartupReportDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StartupReportTest {
+
+    @Autowired
+    StartupReport startupReport;
+
+    @Test
+    public void ddlIsMeasuredWithoutTimeline() {
+        StartupReportDto report = startupReport.report(10);
+
+        //테스트는 BufferingApplicationStartup 없이 시작한다.
+        assertThat(report.isTimelineAvailable()).isFalse();
+        assertThat(report.getReadyMillis()).isNotNull();
+        StartupPhaseDto ddl = report.getPhases().stream()
+                .filter(phase -> phase.getName().equals("ddl-auto"))
+                .findFirst()
+                .orElseThrow();
+        //ddl-auto: create 의 drop/create 문
+        assertThat(ddl.getCount()).isPositive();
+    }
+}
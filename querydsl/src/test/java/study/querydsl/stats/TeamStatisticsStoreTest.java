@@ -0,0 +1,165 @@
+package study.querydsl.stats;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 이후 이벤트로 갱신되므로 @Transactional 없이 직접 커밋하고 정리한다.
+ * 다른 테스트나 로컬에서 띄운 애플리케이션의 데이터를 지우지 않도록 전용 in-memory DB 에서 돌린다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:team-statistics-test;DB_CLOSE_DELAY=-1")
+class TeamStatisticsStoreTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TeamStatisticsStore teamStatisticsStore;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void incrementalUpdate() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            return new Long[]{teamA.getId(), teamB.getId(), member1.getId()};
+        });
+        Long teamAId = ids[0];
+        Long teamBId = ids[1];
+        Long member1Id = ids[2];
+
+        //첫 조회는 재집계
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 2, 30, 10, 20);
+        long rebuilds = teamStatisticsStore.getRebuilds();
+
+        //member1을 teamB로 옮기고 나이 변경
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.changeTeam(em.getReference(Team.class, teamBId));
+            member1.setAge(40);
+        });
+        tx.executeWithoutResult(status -> em.persist(new Member("member4", 5, em.getReference(Team.class, teamAId))));
+
+        assertThat(teamStatisticsStore.isStale()).isFalse();
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 2, 25, 5, 20);
+        assertStats(teamStatisticsStore.findByTeamId(teamBId).get(), 2, 70, 30, 40);
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+        assertStats(teamStatisticsStore.findByTeamId(teamBId).get(), 1, 30, 30, 30);
+        assertThat(teamStatisticsStore.getRebuilds()).isEqualTo(rebuilds);
+
+        //벌크 연산은 백그라운드에서 다시 집계한다. 그동안은 마지막 스냅샷을 돌려준다.
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+        assertThat(teamStatisticsStore.isStale()).isTrue();
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 2, 25, 5, 20);
+
+        teamStatisticsStore.rebuild();
+        assertThat(teamStatisticsStore.isStale()).isFalse();
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 2, 27, 6, 21);
+        assertThat(teamStatisticsStore.getRebuilds()).isGreaterThan(rebuilds);
+    }
+
+    //stale 인 동안의 조회는 각자 다시 집계하지 않고 마지막 스냅샷을 받는다. 재집계는 백그라운드에서 한 번씩만 돈다.
+    @Test
+    public void staleReadsDoNotRebuildInline() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamAId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            return teamA.getId();
+        });
+        teamStatisticsStore.rebuild();
+        long rebuilds = teamStatisticsStore.getRebuilds();
+
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TeamStatisticsDto>> reads = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                reads.add(readers.submit(() -> teamStatisticsStore.findByTeamId(teamAId).get()));
+            }
+            for (Future<TeamStatisticsDto> read : reads) {
+                //이전 스냅샷(10) 이거나 백그라운드 재집계가 끝난 뒤(11)
+                assertThat(read.get().getSum()).isIn(10L, 11L);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        //진행 중인 백그라운드 재집계가 끝날 때까지 기다린다. (rebuild 는 한 번에 하나씩만 돈다)
+        teamStatisticsStore.rebuild();
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 1, 11, 11, 11);
+        //백그라운드 최대 2번(실행 중 1 + 대기 1) + 위의 rebuild 1번
+        assertThat(teamStatisticsStore.getRebuilds() - rebuilds).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void rollbackIsIgnored() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamAId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            return teamA.getId();
+        });
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 1, 10, 10, 10);
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member2", 20, em.getReference(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertStats(teamStatisticsStore.findByTeamId(teamAId).get(), 1, 10, 10, 10);
+    }
+
+    private void assertStats(TeamStatisticsDto stats, long count, long sum, int min, int max) {
+        assertThat(stats.getCount()).isEqualTo(count);
+        assertThat(stats.getSum()).isEqualTo(sum);
+        assertThat(stats.getMin()).isEqualTo(min);
+        assertThat(stats.getMax()).isEqualTo(max);
+    }
+}